@@ -0,0 +1,76 @@
+package org.pingpong;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Словарь канонических имён «Фамилия И.О.» на время работы приложения. Каждое исходное имя
+ * сокращается через {@link Utils#shortenFio} один раз, каноническое имя получает компактный int id:
+ * слияние турниров и личные встречи сравнивают id вместо заново собранных строк.
+ * <p>
+ * Сокращение не идемпотентно («Иванов И.И.» → «Иванов И.»), поэтому для имён, уже взятых из
+ * словаря соперников, есть отдельный {@link #intern(String)} без повторного сокращения.
+ */
+public final class NameDictionary {
+
+    // Защита от неограниченного роста на случайных строках: кэш исходных имён просто начинается заново
+    private static final int MAX_RAW_NAMES = 200_000;
+
+    private static final Map<String, Integer> rawIds = new ConcurrentHashMap<>();
+    private static final Map<String, Integer> canonicalIds = new ConcurrentHashMap<>();
+    private static final List<String> names = new ArrayList<>();
+
+    private NameDictionary() {
+    }
+
+    /**
+     * То же, что {@code Utils.shortenFio(raw)}, но для каждого исходного имени считается один раз.
+     */
+    public static String canonical(String raw) {
+        return name(id(raw));
+    }
+
+    /**
+     * Id канонического имени для исходного имени соперника или игрока.
+     */
+    public static int id(String raw) {
+        if (raw == null) return intern("");
+        Integer id = rawIds.get(raw);
+        if (id == null) {
+            id = intern(Utils.shortenFio(raw));
+            if (rawIds.size() >= MAX_RAW_NAMES) rawIds.clear();
+            rawIds.put(raw, id);
+        }
+        return id;
+    }
+
+    /**
+     * Id уже канонического имени (из словаря соперников в БД), без сокращения.
+     */
+    public static int intern(String canonical) {
+        Integer id = canonicalIds.get(canonical);
+        if (id != null) return id;
+        synchronized (names) {
+            return canonicalIds.computeIfAbsent(canonical, name -> {
+                names.add(name);
+                return names.size() - 1;
+            });
+        }
+    }
+
+    /**
+     * Id канонического имени, если оно уже встречалось, иначе -1. Словарь не пополняет.
+     */
+    public static int find(String canonical) {
+        Integer id = canonical != null ? canonicalIds.get(canonical) : null;
+        return id != null ? id : -1;
+    }
+
+    public static String name(int id) {
+        synchronized (names) {
+            return names.get(id);
+        }
+    }
+}
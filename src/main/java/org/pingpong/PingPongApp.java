@@ -2,39 +2,79 @@ package org.pingpong;
 
 import javafx.application.Application;
 import javafx.application.Platform;
+import javafx.beans.property.SimpleObjectProperty;
 import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.collections.transformation.FilteredList;
+import javafx.collections.transformation.SortedList;
 import javafx.concurrent.Task;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
+import javafx.scene.control.skin.VirtualFlow;
 import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import javafx.scene.layout.BorderPane;
 import javafx.scene.layout.HBox;
+import javafx.scene.layout.Priority;
 import javafx.scene.layout.VBox;
+import javafx.stage.FileChooser;
 import javafx.stage.Modality;
 import javafx.stage.Stage;
 import org.pingpong.config.SpringConfig;
 import org.pingpong.model.Player;
+import org.pingpong.model.PlayerStats;
 import org.pingpong.service.MainAppRefresher;
+import org.pingpong.service.cache.CacheStatisticsService;
+import org.pingpong.service.filter.PlayerField;
+import org.pingpong.service.filter.PlayerQuery;
+import org.pingpong.service.filter.PlayerQuery.Selection;
+import org.pingpong.service.filter.PlayerTable;
 import org.pingpong.service.graph.RatingChartApp;
+import org.pingpong.service.graph.RatingChartService;
+import org.pingpong.service.graph.RatingSeries;
+import org.pingpong.service.headtohead.HeadToHeadService;
+import org.pingpong.service.leaderboard.LeaderboardService;
+import org.pingpong.service.maintenance.MaintenanceService;
 import org.pingpong.service.player.PlayerSearchService;
 import org.pingpong.service.player.PlayerService;
+import org.pingpong.service.player.PlayerStatsUpdater;
+import org.pingpong.service.prediction.PredictionService;
 import org.pingpong.service.player.search.RttfPlayerSearch;
 import org.pingpong.service.player.search.TtwPlayerSearch;
+import org.pingpong.service.tournament.TournamentService;
+import org.pingpong.service.tournament.TournamentWriteBehind;
+import org.pingpong.service.tournament.TtwRosterService;
+import org.pingpong.service.transfer.DataTransferService;
+import org.pingpong.service.window.WindowStatsService;
+import org.pingpong.service.window.WindowStatsService.Window;
+import org.pingpong.service.window.WindowStatsService.WindowStats;
 import org.pingpong.view.BatchSearchDialog;
+import org.pingpong.view.HeadToHeadView;
+import org.pingpong.view.LeaderboardView;
 import org.pingpong.view.PlayerSearchWindow;
+import org.pingpong.view.RatingComparisonView;
 import org.pingpong.view.TournamentTableView;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.AnnotationConfigApplicationContext;
 
+import java.io.File;
 import java.io.IOException;
+import java.nio.file.Path;
 import java.time.LocalDate;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
 
 /**
  * Главное приложение для управления игроками и их турнирной статистикой.
@@ -51,31 +91,93 @@ public class PingPongApp extends Application {
     private static final String BRONZE_MEDAL_PATH = "/images/bronze.png";
     private static final String GRAPH_ICON_PATH = "/images/graph.png";
     private static final String SEARCH_ICON_PATH = "/images/search.png";
+    private static final String EXPORT_EXTENSION = ".ndjson.gz";
+
+    private static final Logger log = LoggerFactory.getLogger(PingPongApp.class);
 
     private static ApplicationContext context;
     private PlayerService playerService;
+    private TournamentService tournamentService;
+    private TournamentWriteBehind tournamentWriteBehind;
+    private PlayerStatsUpdater playerStatsUpdater;
+    private HeadToHeadService headToHeadService;
+    private PredictionService predictionService;
+    private RatingChartService ratingChartService;
+    private LeaderboardService leaderboardService;
+    private TtwRosterService ttwRosterService;
+    private WindowStatsService windowStatsService;
+    private CacheStatisticsService cacheStatisticsService;
+    private DataTransferService dataTransferService;
+    private MaintenanceService maintenanceService;
     private final TableView<Player> tableView = new TableView<>();
+    // Все игроки; таблица показывает их через фильтр выражения и сортировку
+    private final ObservableList<Player> allPlayers = FXCollections.observableArrayList();
+    private final FilteredList<Player> filteredPlayers = new FilteredList<>(allPlayers);
+    private final SortedList<Player> sortedPlayers = new SortedList<>(filteredPlayers);
+    private final TextField filterField = new TextField();
+    // Снимок показателей по столбцам, над которым выполняется фильтр; пересобирается при смене данных
+    private PlayerTable playerTable = PlayerTable.of(List.of(), Map.of());
+    private PlayerQuery playerQuery = PlayerQuery.ALL;
+    // Растёт с каждой загрузкой игроков: ответ устаревшей загрузки отбрасывается
+    private int loadGeneration;
+
+    // Результат фоновой загрузки: игроки и их статистика по ID, ещё не записанная в объекты
+    private record PlayerLoad(List<Player> players, Map<Long, PlayerStats> stats) {
+    }
+
+    private final ComboBox<Window> windowBox = new ComboBox<>(FXCollections.observableArrayList(Window.values()));
+    // Статистика за выбранный период по ID игрока; таблица показывает её вместо статистики за всё время
+    private Map<Long, WindowStats> windowStats = Map.of();
+    // Растёт с каждым пересчётом: результат устаревшего пересчёта отбрасывается
+    private int windowGeneration;
     private final Label statusLabel = new Label();
-    private final MainAppRefresher refresher = this::refreshPlayers;
+    private final MainAppRefresher refresher = new MainAppRefresher() {
+        @Override
+        public void refreshPlayers() {
+            PingPongApp.this.refreshPlayers();
+        }
+
+        @Override
+        public void refreshPlayer(Player player) {
+            PingPongApp.this.refreshPlayer(player);
+        }
+    };
 
 
     @Override
     public void init() {
         context = new AnnotationConfigApplicationContext(SpringConfig.class);
         playerService = context.getBean(PlayerService.class);
+        tournamentService = context.getBean(TournamentService.class);
+        tournamentWriteBehind = context.getBean(TournamentWriteBehind.class);
+        playerStatsUpdater = context.getBean(PlayerStatsUpdater.class);
+        headToHeadService = context.getBean(HeadToHeadService.class);
+        predictionService = context.getBean(PredictionService.class);
+        ratingChartService = context.getBean(RatingChartService.class);
+        leaderboardService = context.getBean(LeaderboardService.class);
+        ttwRosterService = context.getBean(TtwRosterService.class);
+        windowStatsService = context.getBean(WindowStatsService.class);
+        cacheStatisticsService = context.getBean(CacheStatisticsService.class);
+        dataTransferService = context.getBean(DataTransferService.class);
+        maintenanceService = context.getBean(MaintenanceService.class);
     }
 
     @Override
     public void stop() {
+        log.info("Статистика кэша:\n{}", cacheStatisticsService.getSummary());
         if (context instanceof AnnotationConfigApplicationContext ctx) {
             ctx.close();
         }
+        maintenanceService.compactIfRequested();
     }
 
     @Override
     public void start(Stage primaryStage) {
         configureStatusLabel();
         setupTableColumns();
+        windowBox.getSelectionModel().select(Window.ALL);
+        sortedPlayers.comparatorProperty().bind(tableView.comparatorProperty());
+        tableView.setItems(sortedPlayers);
         refreshPlayers();
 
         // Обработчик двойного клика — открытие турниров игрока
@@ -88,10 +190,13 @@ public class PingPongApp extends Application {
             }
         });
 
+        // Несколько игроков выделяются для сравнения рейтингов, остальные действия берут текущего
+        tableView.getSelectionModel().setSelectionMode(SelectionMode.MULTIPLE);
+
         // Отображение статистики при выборе игрока
         tableView.getSelectionModel().selectedItemProperty().addListener((obs, old, current) -> {
             if (current != null) {
-                statusLabel.setText(current.getStats().toString());
+                statusLabel.setText(describeStats(current));
             }
         });
 
@@ -130,7 +235,34 @@ public class PingPongApp extends Application {
         Button refreshAllBtn = createIconButton(REFRESH_ALL_ICON_PATH, "Обновить данные всех игроков", e -> refreshAllPlayers());
         Button batchSearchBtn = createIconButton(SEARCH_ICON_PATH, "Поиск по списку", e -> openBatchSearch());
 
-        HBox toolbar = new HBox(3, addBtn, delBtn, graphBtn, refreshBtn, refreshAllBtn, batchSearchBtn);
+        MenuItem headToHeadItem = new MenuItem("Личные встречи игрока");
+        headToHeadItem.setOnAction(e -> showHeadToHead());
+        MenuItem comparisonItem = new MenuItem("Сравнить рейтинги выбранных");
+        comparisonItem.setOnAction(e -> showRatingComparison());
+        MenuItem leaderboardItem = new MenuItem("Таблица лидеров");
+        leaderboardItem.setOnAction(e -> showLeaderboard());
+        MenuItem cacheStatsItem = new MenuItem("Статистика кэша");
+        cacheStatsItem.setOnAction(e -> showCacheStatistics());
+        MenuItem exportItem = new MenuItem("Экспорт базы...");
+        exportItem.setOnAction(e -> exportDatabase());
+        MenuItem importItem = new MenuItem("Импорт базы...");
+        importItem.setOnAction(e -> importDatabase());
+        MenuItem maintenanceItem = new MenuItem("Обслуживание базы");
+        maintenanceItem.setOnAction(e -> runMaintenance());
+        MenuButton serviceMenu = new MenuButton("🛠 Сервис", null,
+                headToHeadItem, comparisonItem, leaderboardItem, new SeparatorMenuItem(), exportItem, importItem, new SeparatorMenuItem(), maintenanceItem, cacheStatsItem);
+
+        windowBox.setTooltip(new Tooltip("Период статистики в таблице"));
+        windowBox.setOnAction(e -> recomputeWindowStats());
+
+        filterField.setPromptText("Фильтр: ttw_rate > 60 and last >= 2025-06-01 sort ttw desc");
+        filterField.setTooltip(new Tooltip("Поля: " + Arrays.stream(PlayerField.values())
+                .map(PlayerField::toString).collect(Collectors.joining(", ")) +
+                "\nand / or / not, скобки; слово без поля — часть ФИО; sort поле [desc] в конце"));
+        filterField.textProperty().addListener((obs, old, text) -> onFilterChanged(text));
+        HBox.setHgrow(filterField, Priority.ALWAYS);
+
+        HBox toolbar = new HBox(3, addBtn, delBtn, graphBtn, refreshBtn, refreshAllBtn, batchSearchBtn, serviceMenu, windowBox, filterField);
         toolbar.setAlignment(Pos.CENTER_LEFT);
         toolbar.setPadding(new Insets(3, 0, 3, 0));
         return toolbar;
@@ -168,53 +300,55 @@ public class PingPongApp extends Application {
         TableColumn<Player, Void> ratingCol = new TableColumn<>("Рейтинг");
         ratingCol.getColumns().addAll(
                 addColumn("RTTF", "rttfRating"),
-                addColumn("TTW", "ttwRating")
+                addColumn("TTW", "ttwRating"),
+                createDeltaColumn("Δ RTTF", WindowStats::rttfDeltaCents),
+                createDeltaColumn("Δ TTW", WindowStats::ttwDeltaCents)
         );
 
         // Медали
         TableColumn<Player, Void> medalsCol = new TableColumn<>("Медали");
         medalsCol.getColumns().addAll(
-                createMedalColumn(GOLD_MEDAL_PATH, "firstPlaces"),
-                createMedalColumn(SILVER_MEDAL_PATH, "secondPlaces"),
-                createMedalColumn(BRONZE_MEDAL_PATH, "thirdPlaces")
+                createMedalColumn(GOLD_MEDAL_PATH, PlayerStats::getFirstPlaces),
+                createMedalColumn(SILVER_MEDAL_PATH, PlayerStats::getSecondPlaces),
+                createMedalColumn(BRONZE_MEDAL_PATH, PlayerStats::getThirdPlaces)
         );
 
         // Турниры
         TableColumn<Player, Void> tournamentsCol = new TableColumn<>("Турниры");
         tournamentsCol.getColumns().addAll(
-                addColumn("Всего", "totalTours"),
-                addColumn("RTTF", "rttfTours"),
-                addColumn("TTW", "ttwTours")
+                addStatsColumn("Всего", PlayerStats::getTotalTours),
+                addStatsColumn("RTTF", PlayerStats::getRttfTours),
+                addStatsColumn("TTW", PlayerStats::getTtwTours)
         );
 
         // Всего игр
         TableColumn<Player, Void> totalCol = new TableColumn<>("Всего");
         totalCol.getColumns().addAll(
-                addColumn("Игр", "totalGames"),
-                addColumn("+", "totalWins"),
-                addColumn("-", "totalLosses"),
-                addColumn("%", "totalWinRateFormatted")
+                addStatsColumn("Игр", PlayerStats::getTotalGames),
+                addStatsColumn("+", PlayerStats::getTotalWins),
+                addStatsColumn("-", PlayerStats::getTotalLosses),
+                addStatsColumn("%", stats -> formatWinRate(stats.getTotalWins(), stats.getTotalLosses()))
         );
 
         // RTTF
         TableColumn<Player, Void> rttfCol = new TableColumn<>("RTTF");
         rttfCol.getColumns().addAll(
-                addColumn("Игр", "rttfGames"),
-                addColumn("+", "rttfWins"),
-                addColumn("-", "rttfLosses"),
-                addColumn("%", "rttfWinRateFormatted")
+                addStatsColumn("Игр", stats -> stats.getRttfWins() + stats.getRttfLosses()),
+                addStatsColumn("+", PlayerStats::getRttfWins),
+                addStatsColumn("-", PlayerStats::getRttfLosses),
+                addStatsColumn("%", stats -> formatWinRate(stats.getRttfWins(), stats.getRttfLosses()))
         );
 
         // TTW
         TableColumn<Player, Void> ttwCol = new TableColumn<>("TTW");
         ttwCol.getColumns().addAll(
-                addColumn("Игр", "ttwGames"),
-                addColumn("+", "ttwWins"),
-                addColumn("-", "ttwLosses"),
-                addColumn("%", "ttwWinRateFormatted")
+                addStatsColumn("Игр", stats -> stats.getTtwWins() + stats.getTtwLosses()),
+                addStatsColumn("+", PlayerStats::getTtwWins),
+                addStatsColumn("-", PlayerStats::getTtwLosses),
+                addStatsColumn("%", stats -> formatWinRate(stats.getTtwWins(), stats.getTtwLosses()))
         );
 
-        TableColumn<Player, LocalDate> maxDateCol = addColumn("Дата", "maxDate");
+        TableColumn<Player, LocalDate> maxDateCol = addStatsColumn("Дата", PlayerStats::getLastGameDate);
 
         tableView.getColumns().addAll(
                 idCol,
@@ -238,25 +372,245 @@ public class PingPongApp extends Application {
         return col;
     }
 
+    /**
+     * Добавляет колонку статистики за выбранный период.
+     */
+    private <T> TableColumn<Player, T> addStatsColumn(String title, Function<PlayerStats, T> value) {
+        TableColumn<Player, T> col = new TableColumn<>(title);
+        col.setCellValueFactory(data -> new SimpleObjectProperty<>(value.apply(displayedStats(data.getValue()))));
+        return col;
+    }
+
     /**
      * Создаёт колонку с медалью.
      */
-    private TableColumn<Player, Integer> createMedalColumn(String imagePath, String property) {
-        TableColumn<Player, Integer> col = new TableColumn<>();
+    private TableColumn<Player, Integer> createMedalColumn(String imagePath, Function<PlayerStats, Integer> value) {
+        TableColumn<Player, Integer> col = addStatsColumn("", value);
         ImageView icon = new ImageView(loadImage(imagePath));
         icon.setFitWidth(16);
         icon.setFitHeight(16);
         col.setGraphic(icon);
-        col.setCellValueFactory(new PropertyValueFactory<>(property));
         return col;
     }
 
     /**
-     * Обновляет список игроков.
+     * Колонка изменения рейтинга за период: значение в сотых, чтобы сортировка шла по числу.
+     */
+    private TableColumn<Player, Integer> createDeltaColumn(String title, ToIntFunction<WindowStats> cents) {
+        TableColumn<Player, Integer> col = new TableColumn<>(title);
+        col.setCellValueFactory(data -> {
+            WindowStats stats = windowStats.get(data.getValue().getId());
+            return new SimpleObjectProperty<>(stats != null ? cents.applyAsInt(stats) : null);
+        });
+        col.setCellFactory(column -> new TableCell<>() {
+            @Override
+            protected void updateItem(Integer item, boolean empty) {
+                super.updateItem(item, empty);
+                setText(empty || item == null || item == 0 ? null : String.format("%+.2f", item / 100.0));
+            }
+        });
+        return col;
+    }
+
+    /**
+     * Статистика игрока за выбранный период; пока она не посчитана — за всё время.
+     */
+    private PlayerStats displayedStats(Player player) {
+        WindowStats stats = windowStats.get(player.getId());
+        if (stats != null) return stats.stats();
+        return player.hasStats() ? player.getStats() : new PlayerStats();
+    }
+
+    private String describeStats(Player player) {
+        Window window = windowBox.getValue();
+        String stats = displayedStats(player).toString();
+        return window == Window.ALL ? stats : window + ": " + stats;
+    }
+
+    private static String formatWinRate(int wins, int losses) {
+        int total = wins + losses;
+        return String.format("%.1f%%", total > 0 ? (double) wins / total * 100 : 0.0);
+    }
+
+    /**
+     * Пересчитывает таблицу под выбранный период в фоне. Суммы по датам строятся один раз,
+     * дальше переключение — двоичный поиск по каждому игроку.
+     */
+    private void recomputeWindowStats() {
+        Window window = windowBox.getValue();
+        List<Player> players = List.copyOf(allPlayers);
+        int generation = ++windowGeneration;
+
+        Task<Map<Long, WindowStats>> task = new Task<>() {
+            @Override
+            protected Map<Long, WindowStats> call() {
+                return windowStatsService.stats(players, window);
+            }
+        };
+
+        task.setOnSucceeded(e -> {
+            if (generation != windowGeneration) return;
+            windowStats = task.getValue();
+            rebuildPlayerTable();
+            tableView.refresh();
+            Player selected = tableView.getSelectionModel().getSelectedItem();
+            if (selected != null) {
+                statusLabel.setText(describeStats(selected));
+            }
+        });
+
+        task.setOnFailed(e -> {
+            if (generation != windowGeneration) return;
+            Throwable ex = task.getException();
+            statusLabel.setText("❌ Ошибка расчёта статистики за период: " + ex.getMessage());
+            log.error("Ошибка расчёта статистики за период {}: {}", window, ex.getMessage(), ex);
+        });
+
+        new Thread(task).start();
+    }
+
+    /**
+     * Перезагружает игроков в фоне. При первом запуске строки появляются сразу после чтения
+     * PLAYERS, статистика дописывается следом; при перезагрузке до её конца видны прежние данные.
      */
     public void refreshPlayers() {
-        List<Player> players = playerService.findAllPlayers();
-        tableView.setItems(FXCollections.observableArrayList(players));
+        int generation = ++loadGeneration;
+        boolean firstLoad = allPlayers.isEmpty();
+        if (firstLoad) {
+            statusLabel.setText("Загрузка игроков...");
+        }
+
+        Task<PlayerLoad> task = new Task<>() {
+            @Override
+            protected PlayerLoad call() {
+                List<Player> players = playerService.findPlayersWithoutStats();
+                if (firstLoad) {
+                    Platform.runLater(() -> {
+                        if (generation == loadGeneration) publishPlayers(players, false);
+                    });
+                }
+                // Игроки уже могут быть в таблице: статистику в них записывает поток JavaFX
+                return new PlayerLoad(players, playerService.loadStats());
+            }
+        };
+
+        task.setOnSucceeded(e -> {
+            if (generation != loadGeneration) return;
+            PlayerLoad load = task.getValue();
+            playerService.applyStats(load.players(), load.stats());
+            publishPlayers(load.players(), true);
+            // При перезагрузке в строке состояния остаётся итог операции, которая её вызвала
+            if (firstLoad) {
+                statusLabel.setText("✅ Игроков: " + load.players().size());
+            }
+        });
+
+        task.setOnFailed(e -> {
+            if (generation != loadGeneration) return;
+            Throwable ex = task.getException();
+            statusLabel.setText("❌ Ошибка загрузки игроков: " + ex.getMessage());
+            log.error("Ошибка загрузки игроков: {}", ex.getMessage(), ex);
+        });
+
+        new Thread(task).start();
+    }
+
+    /**
+     * Показывает загруженных игроков. Выделение и прокрутка переносятся на новые объекты по ID.
+     * Статистика за период пересчитывается, только когда у игроков уже есть статистика.
+     */
+    private void publishPlayers(List<Player> players, boolean withStats) {
+        TableView.TableViewSelectionModel<Player> selection = tableView.getSelectionModel();
+        Set<Long> selectedIds = selection.getSelectedItems().stream()
+                .map(Player::getId)
+                .collect(Collectors.toSet());
+        Player focused = selection.getSelectedItem();
+        Long focusedId = focused != null ? focused.getId() : null;
+        Long topId = playerIdAt(firstVisibleRow());
+
+        allPlayers.setAll(players);
+        rebuildPlayerTable();
+        if (withStats) {
+            recomputeWindowStats();
+        }
+
+        List<Player> items = tableView.getItems();
+        selection.clearSelection();
+        int focusedRow = -1;
+        int topRow = -1;
+        for (int row = 0; row < items.size(); row++) {
+            Long id = items.get(row).getId();
+            if (selectedIds.contains(id)) selection.select(row);
+            if (id != null && id.equals(focusedId)) focusedRow = row;
+            if (id != null && id.equals(topId)) topRow = row;
+        }
+        // Повторный выбор делает игрока текущим, как до перезагрузки
+        if (focusedRow >= 0) selection.select(focusedRow);
+        if (topRow >= 0) tableView.scrollTo(topRow);
+    }
+
+    private int firstVisibleRow() {
+        if (!(tableView.lookup(".virtual-flow") instanceof VirtualFlow<?> flow)) return -1;
+        IndexedCell<?> first = flow.getFirstVisibleCell();
+        return first != null ? first.getIndex() : -1;
+    }
+
+    private Long playerIdAt(int row) {
+        List<Player> items = tableView.getItems();
+        return row >= 0 && row < items.size() ? items.get(row).getId() : null;
+    }
+
+    /**
+     * Собирает снимок показателей заново и применяет к нему текущее выражение фильтра.
+     */
+    private void rebuildPlayerTable() {
+        playerTable = PlayerTable.of(allPlayers, windowStats);
+        applyFilter();
+    }
+
+    private void onFilterChanged(String text) {
+        try {
+            playerQuery = PlayerQuery.parse(text);
+        } catch (IllegalArgumentException e) {
+            // Недописанное выражение не сбрасывает таблицу: остаётся последний верный фильтр
+            filterField.setStyle("-fx-text-fill: #cc0000;");
+            statusLabel.setText("⚠ " + e.getMessage());
+            return;
+        }
+        filterField.setStyle("");
+        long start = System.nanoTime();
+        Selection selection = applyFilter();
+        statusLabel.setText(String.format("Показано игроков: %d из %d (%.1f мс)",
+                selection.count(), selection.total(), (System.nanoTime() - start) / 1_000_000.0));
+    }
+
+    /**
+     * Фильтр выражения над снимком; порядок из sort заменяет сортировку по столбцам таблицы.
+     */
+    private Selection applyFilter() {
+        Selection selection = playerQuery.run(playerTable);
+        // Новый предикат заставляет FilteredList и SortedList пересчитаться и после правок на месте
+        filteredPlayers.setPredicate(selection::contains);
+        if (playerQuery.hasOrder()) {
+            sortedPlayers.comparatorProperty().unbind();
+            tableView.getSortOrder().clear();
+            sortedPlayers.setComparator(selection.order());
+        } else if (!sortedPlayers.comparatorProperty().isBound()) {
+            sortedPlayers.comparatorProperty().bind(tableView.comparatorProperty());
+        }
+        return selection;
+    }
+
+    /**
+     * Перерисовывает таблицу после того, как статистика игрока обновлена на месте.
+     */
+    public void refreshPlayer(Player player) {
+        recomputeWindowStats();
+        rebuildPlayerTable();
+        tableView.refresh();
+        if (player == tableView.getSelectionModel().getSelectedItem()) {
+            statusLabel.setText(describeStats(player));
+        }
     }
 
     /**
@@ -268,7 +622,8 @@ public class PingPongApp extends Application {
         stage.getIcons().add(loadImage(ICON_PATH));
         stage.initModality(Modality.WINDOW_MODAL);
 
-        TournamentTableView tournamentView = new TournamentTableView();
+        TournamentTableView tournamentView = new TournamentTableView(tournamentService, tournamentWriteBehind, playerStatsUpdater,
+                headToHeadService, predictionService, ttwRosterService);
         tournamentView.setHostServices(getHostServices());
         tournamentView.setMainAppRefresher(refresher);
         tournamentView.setTournamentsForPlayer(player);
@@ -342,17 +697,17 @@ public class PingPongApp extends Application {
     private void updatePlayerWithDate(Player player, LocalDate dateFrom) {
         statusLabel.setText("🔄 Обновление турниров " + player.getFio() + "...");
 
-        Task<Void> task = new Task<>() {
+        Task<PlayerService.SaveResult> task = new Task<>() {
             @Override
-            protected Void call() throws IOException {
-                playerService.save(player, dateFrom, false);
-                return null;
+            protected PlayerService.SaveResult call() throws IOException {
+                return playerService.save(player, dateFrom, false);
             }
         };
 
         task.setOnSucceeded(e -> {
+            playerService.applySave(player, task.getValue());
+            refreshPlayer(player);
             statusLabel.setText("✅ Турниры обновлены для " + player.getFio());
-            refreshPlayers();
         });
 
         task.setOnFailed(e -> statusLabel.setText("❌ Ошибка: " + task.getException().getMessage()));
@@ -396,7 +751,7 @@ public class PingPongApp extends Application {
         };
 
         task.setOnSucceeded(e -> Platform.runLater(() -> {
-            tableView.getItems().remove(player);
+            allPlayers.remove(player);
             statusLabel.setText("Игрок " + player.getFio() + " удалён");
             tableView.refresh();
         }));
@@ -422,11 +777,13 @@ public class PingPongApp extends Application {
      * Асинхронное обновление данных для всех игроков с отображением прогресса.
      */
     private void refreshAllPlayers() {
-        List<Player> players = FXCollections.observableArrayList(tableView.getItems());
+        List<Player> players = List.copyOf(allPlayers);
         if (players.isEmpty()) {
             statusLabel.setText("Список игроков пуст.");
             return;
         }
+        // Статистику строк таблицы читаем здесь, в потоке JavaFX
+        List<LocalDate> dates = players.stream().map(Player::getMaxDate).toList();
 
         Task<Void> task = new Task<>() {
             @Override
@@ -440,7 +797,9 @@ public class PingPongApp extends Application {
                         int finalI = i;
                         Platform.runLater(() -> statusLabel.setText("Обновление: " + (finalI + 1) + "/" + players.size() + " — " + player.getFio()));
 
-                        playerService.save(player, player.getMaxDate(), true); // используем последнюю дату игрока
+                        // используем последнюю дату игрока; результат записывается в строку таблицы в потоке JavaFX
+                        PlayerService.SaveResult result = playerService.save(player, dates.get(i), true);
+                        Platform.runLater(() -> playerService.applySave(player, result));
                     } catch (Exception e) {
                         Platform.runLater(() -> statusLabel.setText("Ошибка при обновлении " + player.getFio() + ": " + e.getMessage()));
                     }
@@ -452,8 +811,10 @@ public class PingPongApp extends Application {
             @Override
             protected void succeeded() {
                 Platform.runLater(() -> {
+                    recomputeWindowStats();
+                    rebuildPlayerTable();
+                    tableView.refresh();
                     statusLabel.setText("✅ Все игроки обновлены.");
-                    refreshPlayers();
                 });
             }
 
@@ -475,7 +836,7 @@ public class PingPongApp extends Application {
             return;
         }
 
-        if (selected.getTournamentList() == null || selected.getTournamentList().isEmpty()) {
+        if (selected.getTotalTours() == 0) {
             showError((Stage) tableView.getScene().getWindow(),
                     "У игрока " + selected.getFio() + " нет турниров для построения графика");
             return;
@@ -483,18 +844,198 @@ public class PingPongApp extends Application {
 
         statusLabel.setText("Строим график для " + selected.getFio() + "...");
 
+        // Ряд строится по дельтам игр один раз и дальше берётся из кэша
+        RatingSeries series = ratingChartService.getSeries(selected);
+
         // Показываем график в отдельном окне
-        RatingChartApp.showRatingChart(selected.getTournamentList(), selected);
+        RatingChartApp.showRatingChart(series, selected);
 
         statusLabel.setText("График показан для " + selected.getFio());
     }
 
+    /**
+     * Экспорт всей базы в файл (gzip NDJSON) в фоне.
+     */
+    private void exportDatabase() {
+        FileChooser chooser = createExportFileChooser("Экспорт базы");
+        chooser.setInitialFileName("pingpong-" + LocalDate.now() + EXPORT_EXTENSION);
+        File file = chooser.showSaveDialog(tableView.getScene().getWindow());
+        if (file == null) return;
+
+        statusLabel.setText("Экспорт базы в " + file.getName() + "...");
+        Task<DataTransferService.TransferResult> task = new Task<>() {
+            @Override
+            protected DataTransferService.TransferResult call() throws IOException {
+                return dataTransferService.exportTo(file.toPath());
+            }
+        };
+        task.setOnSucceeded(e -> statusLabel.setText("✅ Экспортировано: " + task.getValue()));
+        task.setOnFailed(e -> statusLabel.setText("❌ Ошибка экспорта: " + task.getException().getMessage()));
+        new Thread(task).start();
+    }
+
+    /**
+     * Импорт игроков из файла экспорта в фоне.
+     */
+    private void importDatabase() {
+        File file = createExportFileChooser("Импорт базы").showOpenDialog(tableView.getScene().getWindow());
+        if (file == null) return;
+
+        statusLabel.setText("Импорт базы из " + file.getName() + "...");
+        Task<DataTransferService.TransferResult> task = new Task<>() {
+            @Override
+            protected DataTransferService.TransferResult call() throws IOException {
+                return dataTransferService.importFrom(file.toPath());
+            }
+        };
+        task.setOnSucceeded(e -> {
+            statusLabel.setText("✅ Импортировано: " + task.getValue());
+            refreshPlayers();
+        });
+        task.setOnFailed(e -> statusLabel.setText("❌ Ошибка импорта: " + task.getException().getMessage()));
+        new Thread(task).start();
+    }
+
+    private FileChooser createExportFileChooser(String title) {
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle(title);
+        chooser.getExtensionFilters().add(
+                new FileChooser.ExtensionFilter("Экспорт базы (*" + EXPORT_EXTENSION + ")", "*" + EXPORT_EXTENSION));
+        return chooser;
+    }
+
+    /**
+     * Статистика, кэш и резервная копия в фоне; сжатие файла откладывается до выхода из приложения.
+     */
+    private void runMaintenance() {
+        Path backup = maintenanceService.newBackupFile();
+        statusLabel.setText("Обслуживание базы...");
+        Task<MaintenanceService.MaintenanceReport> task = new Task<>() {
+            @Override
+            protected MaintenanceService.MaintenanceReport call() {
+                return maintenanceService.runOnline(backup);
+            }
+        };
+        task.setOnSucceeded(e -> {
+            maintenanceService.requestCompactionOnExit();
+            statusLabel.setText("✅ Обслуживание: " + task.getValue() + ". Файл будет сжат при выходе.");
+        });
+        task.setOnFailed(e -> statusLabel.setText("❌ Ошибка обслуживания: " + task.getException().getMessage()));
+        new Thread(task).start();
+    }
+
+    /**
+     * Показывает статистику попаданий в кэш второго уровня.
+     */
+    private void showCacheStatistics() {
+        Alert alert = new Alert(Alert.AlertType.INFORMATION);
+        alert.initOwner(tableView.getScene().getWindow());
+        alert.setTitle("Статистика кэша");
+        alert.setHeaderText("Кэш турниров и игр");
+        alert.setContentText(cacheStatisticsService.getSummary());
+        alert.showAndWait();
+    }
+
+    /**
+     * Открывает окно личных встреч выбранного игрока.
+     */
+    private void showHeadToHead() {
+        Player selected = tableView.getSelectionModel().getSelectedItem();
+        if (selected == null) {
+            statusLabel.setText("Выберите игрока для личных встреч");
+            return;
+        }
+
+        Stage stage = new Stage();
+        stage.setTitle(selected.getFio() + " - Личные встречи");
+        stage.getIcons().add(loadImage(ICON_PATH));
+        stage.initOwner(tableView.getScene().getWindow());
+        stage.setScene(new Scene(new HeadToHeadView(selected, headToHeadService), 900, 600));
+        stage.show();
+    }
+
+    /**
+     * Открывает сравнение рейтингов выделенных в таблице игроков.
+     */
+    private void showRatingComparison() {
+        List<Player> selected = List.copyOf(tableView.getSelectionModel().getSelectedItems());
+        if (selected.size() < 2) {
+            statusLabel.setText("Выделите двух и более игроков (Ctrl+щелчок) для сравнения рейтингов");
+            return;
+        }
+
+        Stage stage = new Stage();
+        stage.setTitle("Сравнение рейтингов: " + selected.size() + " игроков");
+        stage.getIcons().add(loadImage(GRAPH_ICON_PATH));
+        stage.initOwner(tableView.getScene().getWindow());
+        stage.setScene(new Scene(new RatingComparisonView(selected, ratingChartService), 1000, 700));
+        stage.show();
+    }
+
+    private void showLeaderboard() {
+        Stage stage = new Stage();
+        stage.setTitle("Таблица лидеров");
+        stage.getIcons().add(loadImage(ICON_PATH));
+        stage.initOwner(tableView.getScene().getWindow());
+        stage.setScene(new Scene(new LeaderboardView(leaderboardService), 800, 650));
+        stage.show();
+    }
+
     private void openBatchSearch() {
         BatchSearchDialog dialog = new BatchSearchDialog();
         dialog.show();
     }
 
+    /**
+     * {@code --maintenance} — обслуживание базы без окна (со сжатием файла), {@code --no-backup} — без резервной копии.
+     * {@code --backtest [ГГГГ-ММ-ДД]} — проверка модели прогноза на играх после даты (по умолчанию — год назад).
+     * {@code --verify-stats} — сверка инкрементального расчёта статистики с агрегатами БД; код выхода 1 при расхождениях.
+     */
     public static void main(String[] args) {
+        List<String> options = List.of(args);
+        if (options.contains("--maintenance")) {
+            runMaintenanceHeadless(!options.contains("--no-backup"));
+            return;
+        }
+        if (options.contains("--verify-stats")) {
+            if (!runStatsVerificationHeadless()) System.exit(1);
+            return;
+        }
+        int backtest = options.indexOf("--backtest");
+        if (backtest >= 0) {
+            runBacktestHeadless(backtest + 1 < args.length
+                    ? LocalDate.parse(args[backtest + 1])
+                    : LocalDate.now().minusYears(1));
+            return;
+        }
         launch(args);
     }
+
+    private static void runMaintenanceHeadless(boolean backup) {
+        try (AnnotationConfigApplicationContext ctx = new AnnotationConfigApplicationContext(SpringConfig.class)) {
+            MaintenanceService service = ctx.getBean(MaintenanceService.class);
+            MaintenanceService.MaintenanceReport report = service.runFull(backup ? service.newBackupFile() : null);
+            log.info("Обслуживание базы: {}", report);
+        }
+    }
+
+    private static boolean runStatsVerificationHeadless() {
+        try (AnnotationConfigApplicationContext ctx = new AnnotationConfigApplicationContext(SpringConfig.class)) {
+            PlayerStatsUpdater.VerifyReport report = ctx.getBean(PlayerStatsUpdater.class).verifyAll();
+            return report.mismatches() == 0;
+        }
+    }
+
+    private static void runBacktestHeadless(LocalDate cutoff) {
+        try (AnnotationConfigApplicationContext ctx = new AnnotationConfigApplicationContext(SpringConfig.class)) {
+            PredictionService service = ctx.getBean(PredictionService.class);
+            for (PredictionService.Source source : PredictionService.Source.values()) {
+                try {
+                    log.info("Проверка прогноза: {}", service.backtest(source, cutoff));
+                } catch (IllegalArgumentException e) {
+                    log.warn("Проверка прогноза {}: {}", source, e.getMessage());
+                }
+            }
+        }
+    }
 }
\ No newline at end of file
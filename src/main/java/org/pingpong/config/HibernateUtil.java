@@ -5,17 +5,44 @@ import org.hibernate.boot.Metadata;
 import org.hibernate.boot.MetadataSources;
 import org.hibernate.boot.registry.StandardServiceRegistry;
 import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.cfg.JdbcSettings;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+import org.hibernate.internal.util.config.ConfigurationHelper;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.Map;
 
 public class HibernateUtil {
 
+    /** -Dpingpong.schema.validate=true — сверить сущности со схемой при запуске (медленнее на большой базе) */
+    private static final String VALIDATE_PROPERTY = "pingpong.schema.validate";
+
     private static final SessionFactory SESSION_FACTORY;
+    private static final String URL;
+    private static final String USER;
+    private static final String PASSWORD;
 
     static {
         try {
-            StandardServiceRegistry registry =
+            StandardServiceRegistryBuilder builder =
                     new StandardServiceRegistryBuilder()
-                            .configure("hibernate.cfg.xml") // по умолчанию можно просто .configure()
-                            .build();
+                            .configure("hibernate.cfg.xml"); // по умолчанию можно просто .configure()
+            if (Boolean.getBoolean(VALIDATE_PROPERTY)) {
+                builder.applySetting(AvailableSettings.HBM2DDL_AUTO, "validate");
+            }
+            StandardServiceRegistry registry = builder.build();
+
+            Map<String, Object> settings = registry.getService(ConfigurationService.class).getSettings();
+            URL = ConfigurationHelper.getString(JdbcSettings.JAKARTA_JDBC_URL, settings);
+            USER = ConfigurationHelper.getString(JdbcSettings.JAKARTA_JDBC_USER, settings, "");
+            PASSWORD = ConfigurationHelper.getString(JdbcSettings.JAKARTA_JDBC_PASSWORD, settings, "");
+
+            // Схема приводится к нужной версии до построения фабрики, Hibernate её только использует
+            SchemaMigrator.migrate(registry.getService(ConnectionProvider.class));
 
             Metadata metadata = new MetadataSources(registry)
                     .getMetadataBuilder()
@@ -30,4 +57,25 @@ public class HibernateUtil {
     public static SessionFactory getSessionFactory() {
         return SESSION_FACTORY;
     }
+
+    public static String getUrl() {
+        return URL;
+    }
+
+    /**
+     * Соединение в обход пула Hibernate — для работы с базой после {@link #shutdown()}.
+     */
+    public static Connection openConnection() throws SQLException {
+        return DriverManager.getConnection(URL, USER, PASSWORD);
+    }
+
+    /**
+     * Закрывает фабрику и её пул соединений; H2 закрывает файл базы вместе с последним соединением.
+     * Нужно перед операциями, которым база должна достаться целиком (SHUTDOWN COMPACT).
+     */
+    public static void shutdown() {
+        if (SESSION_FACTORY.isOpen()) {
+            SESSION_FACTORY.close();
+        }
+    }
 }
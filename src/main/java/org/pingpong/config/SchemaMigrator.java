@@ -0,0 +1,173 @@
+package org.pingpong.config;
+
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.zip.CRC32;
+
+/**
+ * Версионные миграции схемы. Скрипты из {@code db/migration} применяются по порядку один раз,
+ * применённые записываются в SCHEMA_VERSION вместе с контрольной суммой. Если уже применённый
+ * скрипт изменился, запуск останавливается: схему меняют только новым скриптом.
+ * <p>
+ * DDL в H2 фиксируется сразу, поэтому скрипты пишутся повторяемыми (IF NOT EXISTS и т.п.):
+ * после сбоя посередине миграция просто выполняется заново. База, созданная до появления миграций
+ * (схему вёл hbm2ddl=update), проходит их с V1 как обычно: V1 на ней ничего не меняет.
+ */
+public class SchemaMigrator {
+
+    private static final Logger log = LoggerFactory.getLogger(SchemaMigrator.class);
+    private static final String LOCATION = "/db/migration/";
+
+    // Новые миграции добавляются в конец списка, уже выпущенные не редактируются
+    private static final List<String> MIGRATIONS = List.of(
+            "V1__baseline.sql",
+            "V2__opponents_dictionary.sql",
+            "V3__ttw_rosters.sql"
+    );
+
+    private record Migration(int version, String description, String script, long checksum) {
+    }
+
+    /**
+     * Соединение берётся у пула Hibernate: H2 не закрывает файл базы между миграцией
+     * и построением фабрики сессий.
+     */
+    public static void migrate(ConnectionProvider connectionProvider) {
+        long start = System.nanoTime();
+        int appliedNow = 0;
+        Connection connection = null;
+        try {
+            connection = connectionProvider.getConnection();
+            createVersionTable(connection);
+            Map<Integer, Long> applied = appliedChecksums(connection);
+            int latest = 0;
+
+            for (String file : MIGRATIONS) {
+                Migration migration = load(file);
+                latest = migration.version();
+                Long checksum = applied.get(migration.version());
+                if (checksum == null) {
+                    apply(connection, migration);
+                    appliedNow++;
+                } else if (checksum != migration.checksum()) {
+                    throw new IllegalStateException("Миграция " + file + " изменена после применения " +
+                            "(контрольная сумма " + checksum + " → " + migration.checksum() + ")");
+                }
+            }
+
+            int newest = latest;
+            applied.keySet().stream().filter(v -> v > newest).findAny().ifPresent(v -> {
+                throw new IllegalStateException("База уже обновлена до версии " + v +
+                        ", эта сборка знает только до " + newest);
+            });
+
+            log.info("Схема БД: версия {}, применено миграций {}, {} мс",
+                    latest, appliedNow, (System.nanoTime() - start) / 1_000_000);
+        } catch (SQLException e) {
+            throw new RuntimeException("Ошибка миграции схемы БД", e);
+        } finally {
+            if (connection != null) {
+                try {
+                    connectionProvider.closeConnection(connection);
+                } catch (SQLException e) {
+                    log.warn("Не удалось вернуть соединение после миграции", e);
+                }
+            }
+        }
+    }
+
+    private static void createVersionTable(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("""
+                    CREATE TABLE IF NOT EXISTS SCHEMA_VERSION (
+                        version      INTEGER PRIMARY KEY,
+                        description  VARCHAR(255) NOT NULL,
+                        checksum     BIGINT NOT NULL,
+                        applied_on   TIMESTAMP NOT NULL,
+                        execution_ms BIGINT NOT NULL
+                    )""");
+        }
+    }
+
+    private static Map<Integer, Long> appliedChecksums(Connection connection) throws SQLException {
+        Map<Integer, Long> applied = new HashMap<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT version, checksum FROM SCHEMA_VERSION")) {
+            while (rs.next()) {
+                applied.put(rs.getInt(1), rs.getLong(2));
+            }
+        }
+        return applied;
+    }
+
+    private static void apply(Connection connection, Migration migration) throws SQLException {
+        long start = System.nanoTime();
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try (Statement statement = connection.createStatement()) {
+            for (String sql : statements(migration.script())) {
+                statement.execute(sql);
+            }
+            long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+            record(connection, migration, elapsedMs);
+            connection.commit();
+            log.info("Применена миграция V{} ({}): {} мс", migration.version(), migration.description(), elapsedMs);
+        } catch (SQLException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    private static void record(Connection connection, Migration migration, long elapsedMs) throws SQLException {
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO SCHEMA_VERSION (version, description, checksum, applied_on, execution_ms) " +
+                        "VALUES (?, ?, ?, ?, ?)")) {
+            insert.setInt(1, migration.version());
+            insert.setString(2, migration.description());
+            insert.setLong(3, migration.checksum());
+            insert.setTimestamp(4, new Timestamp(System.currentTimeMillis()));
+            insert.setLong(5, elapsedMs);
+            insert.executeUpdate();
+        }
+    }
+
+    private static Migration load(String file) {
+        String[] parts = file.substring(1, file.length() - ".sql".length()).split("__", 2);
+        try (InputStream in = Objects.requireNonNull(
+                SchemaMigrator.class.getResourceAsStream(LOCATION + file), LOCATION + file)) {
+            // Переводы строк нормализуются, чтобы checkout на Windows не менял контрольную сумму
+            String script = new String(in.readAllBytes(), StandardCharsets.UTF_8).replace("\r\n", "\n");
+            CRC32 crc = new CRC32();
+            crc.update(script.getBytes(StandardCharsets.UTF_8));
+            return new Migration(Integer.parseInt(parts[0]), parts[1].replace('_', ' '), script, crc.getValue());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static List<String> statements(String script) {
+        return Arrays.stream(script.replaceAll("(?m)^--.*$", "").split(";"))
+                .map(String::trim)
+                .filter(sql -> !sql.isEmpty())
+                .toList();
+    }
+}
@@ -2,6 +2,8 @@ package org.pingpong.model;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 
 import java.math.BigDecimal;
@@ -14,6 +16,8 @@ import java.math.BigDecimal;
 @NoArgsConstructor
 @Entity
 @Table(name = "GAMES")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class Game {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -21,18 +25,39 @@ public class Game {
 
     private Integer gameOrder;
     private Integer gameNaturalOrder;
+
+    @ManyToOne(fetch = FetchType.EAGER)
+    @JoinColumn(name = "opponent_id")
+    private Opponent opponent;
+
+    // Имя до привязки к словарю (результат парсинга или правки); в БД хранится только opponent_id
+    @Transient
     private String opponentName;
+
     private Integer opponentRttfRating;
     private Integer opponentTtwRating;
     private Integer score;
     private Integer opponentScore;
+
+    @Convert(converter = ScaledDecimalConverter.class)
+    @Column(name = "rttfDeltaCents")
     private BigDecimal rttfDelta;
+
+    @Convert(converter = ScaledDecimalConverter.class)
+    @Column(name = "ttwDeltaCents")
     private BigDecimal ttwDelta;
 
     @ManyToOne(cascade = {CascadeType.PERSIST, CascadeType.MERGE}, fetch = FetchType.LAZY)
     @JoinColumn(name = "tournament_id")
     private Tournament tournament;
 
+    public String getOpponentName() {
+        if (opponentName == null && opponent != null) {
+            return opponent.getName();
+        }
+        return opponentName;
+    }
+
     @Override
     public String toString() {
         return "Game{" +
@@ -5,7 +5,7 @@ import lombok.*;
 import org.pingpong.service.player.parser.PlayerParser;
 import org.pingpong.service.player.parser.RttfPlayerParser;
 import org.pingpong.service.player.parser.TtwPlayerParser;
-import org.pingpong.Utils;
+import org.pingpong.NameDictionary;
 import org.pingpong.service.PlayerStatsService;
 
 import java.io.IOException;
@@ -45,6 +45,10 @@ public class Player {
         return stats;
     }
 
+    public boolean hasStats() {
+        return stats != null;
+    }
+
     public LocalDate getMaxDate() {
         return stats != null ? stats.getLastGameDate() : LocalDate.MIN;
     }
@@ -194,23 +198,41 @@ public class Player {
         return this.getTournamentList();
     }
 
+    /**
+     * Объединяет турниры TTW с турнирами RTTF: совпадением считается турнир той же даты, в котором
+     * не меньше 5 игр совпадают по сопернику и счёту. Кандидаты ищутся только среди турниров той же
+     * даты, ключи игр каждого турнира строятся один раз и сравнивают id имён из NameDictionary.
+     */
     public static List<Tournament> mergeTournaments(List<Tournament> existingList, List<Tournament> newList) {
         List<Tournament> result = new ArrayList<>(existingList);
 
+        // Турниры без игр ни с чем не совпадают и в индекс не попадают; порядок внутри даты — как в existingList
+        Map<LocalDate, List<GameKeys>> existingByDate = new HashMap<>();
+        for (Tournament existing : existingList) {
+            if (hasGames(existing)) {
+                existingByDate.computeIfAbsent(existing.getDate(), date -> new ArrayList<>()).add(new GameKeys(existing));
+            }
+        }
+
         for (Tournament newTournament : newList) {
-            Tournament matchingTournament = null;
+            GameKeys matching = null;
 
             // Ищем совпадающий турнир
-            for (Tournament existing : existingList) {
-                if (tournamentsMatchByDateAndGames(existing, newTournament)) {
-                    matchingTournament = existing;
-                    break;
+            List<GameKeys> candidates = hasGames(newTournament) ? existingByDate.get(newTournament.getDate()) : null;
+            if (candidates != null) {
+                List<GameKey> newKeys = gameKeys(newTournament.getGames());
+                for (GameKeys candidate : candidates) {
+                    if (candidate.matches(newKeys)) {
+                        matching = candidate;
+                        break;
+                    }
                 }
             }
 
-            if (matchingTournament != null) {
-                // Совпадение — объединяем игры
-                mergeTournamentGames(matchingTournament, newTournament);
+            if (matching != null) {
+                // Совпадение — объединяем игры; у объединённого турнира ключи придётся построить заново
+                mergeTournamentGames(matching.tournament, newTournament);
+                matching.keys = null;
             } else {
                 // Нет совпадения — добавляем новый
                 result.add(newTournament);
@@ -220,30 +242,44 @@ public class Player {
         return result;
     }
 
-    private static boolean tournamentsMatchByDateAndGames(Tournament t1, Tournament t2) {
-        // 1. Совпадает дата
-        if (!Objects.equals(t1.getDate(), t2.getDate())) {
-            return false;
-        }
-
-        List<Game> games1 = t1.getGames();
-        List<Game> games2 = t2.getGames();
+    private static boolean hasGames(Tournament tournament) {
+        return tournament.getGames() != null && !tournament.getGames().isEmpty();
+    }
 
-        if (games1 == null || games2 == null || games1.isEmpty() || games2.isEmpty()) {
-            return false;
+    private static List<GameKey> gameKeys(List<Game> games) {
+        List<GameKey> keys = new ArrayList<>(games.size());
+        for (Game g : games) {
+            keys.add(new GameKey(NameDictionary.id(g.getOpponentName()), g.getScore(), g.getOpponentScore()));
         }
+        return keys;
+    }
 
-        // 2. Считаем совпадающие игры (≥5)
-        Set<String> gameKeys1 = games1.stream()
-                .map(g -> normalizeGameKey(g.getOpponentName(), g.getScore(), g.getOpponentScore()))
-                .collect(Collectors.toSet());
+    // Соперник (id канонического имени) и счёт игры
+    private record GameKey(int opponent, Integer score, Integer opponentScore) {
+    }
 
-        long matchingGames = games2.stream()
-                .map(g -> normalizeGameKey(g.getOpponentName(), g.getScore(), g.getOpponentScore()))
-                .filter(gameKeys1::contains)
-                .count();
+    /**
+     * Ключи игр существующего турнира, строятся при первом сравнении.
+     */
+    private static final class GameKeys {
+        private final Tournament tournament;
+        private Set<GameKey> keys;
 
-        return matchingGames >= 5;
+        GameKeys(Tournament tournament) {
+            this.tournament = tournament;
+        }
+
+        // Совпадающих игр должно быть не меньше 5; повторы в новом турнире считаются каждый раз
+        boolean matches(List<GameKey> newKeys) {
+            if (keys == null) {
+                keys = new HashSet<>(gameKeys(tournament.getGames()));
+            }
+            int matchingGames = 0;
+            for (GameKey key : newKeys) {
+                if (keys.contains(key) && ++matchingGames >= 5) return true;
+            }
+            return false;
+        }
     }
 
     public static void mergeTournamentGames(Tournament existing, Tournament updated) {
@@ -252,18 +288,18 @@ public class Player {
         if (updated.getTtwName() != null) existing.setTtwName(updated.getTtwName());
         if (updated.getTtwDelta() != null) existing.setTtwDelta(updated.getTtwDelta());
 
-        // Группируем игры по (shortenFio(opponentName) + gameOrder)
-        Map<String, List<Game>> existingGamesByKey = groupGamesByKey(existing.getGames());
-        Map<String, List<Game>> updatedGamesByKey = groupGamesByKey(updated.getGames());
+        // Группируем игры по каноническому имени соперника (id из словаря), внутри группы — по gameOrder
+        Map<Integer, List<Game>> existingGamesByKey = groupGamesByKey(existing.getGames());
+        Map<Integer, List<Game>> updatedGamesByKey = groupGamesByKey(updated.getGames());
 
         // Объединяем игры
-        Set<String> allKeys = new HashSet<>();
+        Set<Integer> allKeys = new HashSet<>();
         allKeys.addAll(existingGamesByKey.keySet());
         allKeys.addAll(updatedGamesByKey.keySet());
 
         List<Game> mergedGames = new ArrayList<>();
 
-        for (String key : allKeys) {
+        for (Integer key : allKeys) {
             List<Game> existingGames = existingGamesByKey.getOrDefault(key, Collections.emptyList());
             List<Game> updatedGames = updatedGamesByKey.getOrDefault(key, Collections.emptyList());
 
@@ -279,10 +315,10 @@ public class Player {
         existing.setGames(sortAndRenumberGames(mergedGames));
     }
 
-    private static Map<String, List<Game>> groupGamesByKey(List<Game> games) {
+    private static Map<Integer, List<Game>> groupGamesByKey(List<Game> games) {
         return games.stream()
                 .collect(Collectors.groupingBy(
-                        g -> Utils.shortenFio(g.getOpponentName()),
+                        g -> NameDictionary.id(g.getOpponentName()),
                         Collectors.collectingAndThen(
                                 Collectors.toList(),
                                 list -> {
@@ -368,10 +404,6 @@ public class Player {
         return clone;
     }
 
-    private static String normalizeGameKey(String opponentName, Integer score, Integer opponentScore) {
-        return Utils.shortenFio(opponentName) + "|" + score + "|" + opponentScore;
-    }
-
     private static List<Game> sortAndRenumberGames(List<Game> games) {
         // Сортируем по opponentName, затем по исходному gameOrder
         List<Game> sorted = games.stream()
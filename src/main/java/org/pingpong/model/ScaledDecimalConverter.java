@@ -0,0 +1,30 @@
+package org.pingpong.model;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Хранит дельту рейтинга целым числом сотых (5.25 → 525) вместо DECIMAL.
+ */
+@Converter
+public class ScaledDecimalConverter implements AttributeConverter<BigDecimal, Integer> {
+
+    public static final int SCALE = 2;
+
+    @Override
+    public Integer convertToDatabaseColumn(BigDecimal value) {
+        return value != null ? toScaled(value) : null;
+    }
+
+    @Override
+    public BigDecimal convertToEntityAttribute(Integer value) {
+        return value != null ? BigDecimal.valueOf(value, SCALE) : null;
+    }
+
+    public static int toScaled(BigDecimal value) {
+        return value.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().intValueExact();
+    }
+}
@@ -0,0 +1,272 @@
+package org.pingpong.repository;
+
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+import org.pingpong.config.HibernateUtil;
+import org.pingpong.model.Game;
+import org.pingpong.model.Player;
+import org.pingpong.model.ScaledDecimalConverter;
+import org.pingpong.model.Tournament;
+import org.springframework.stereotype.Repository;
+
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Потоковое чтение и запись всей базы для экспорта/импорта.
+ * Чтение идёт тремя курсорами (игроки, турниры, игры), упорядоченными одинаково,
+ * поэтому в памяти держится только текущая строка каждого курсора.
+ */
+@Repository
+public class DataTransferRepository {
+
+    private static final int FETCH_SIZE = 500;
+
+    private final SessionFactory sessionFactory = HibernateUtil.getSessionFactory();
+
+    /**
+     * Получатель строк при экспорте: игрок, затем его турниры, за каждым турниром — его игры.
+     */
+    public interface ExportSink {
+        void player(Player player);
+
+        void tournament(Tournament tournament);
+
+        void game(Game game);
+    }
+
+    public void exportAll(ExportSink sink) {
+        try (StatelessSession session = sessionFactory.openStatelessSession();
+             ScrollableResults<Object[]> players = session.createQuery(
+                             "SELECT p.id, p.fio, p.rttfId, p.ttwId, p.rttfRating, p.ttwRating " +
+                                     "FROM Player p ORDER BY p.id", Object[].class)
+                     .setFetchSize(FETCH_SIZE)
+                     .scroll(ScrollMode.FORWARD_ONLY);
+             ScrollableResults<Object[]> tournaments = session.createQuery(
+                             "SELECT t.player.id, t.id, t.date, t.place, t.rttfId, t.rttfName, t.rttfDelta, " +
+                                     "t.ttwId, t.ttwName, t.ttwDelta " +
+                                     "FROM Tournament t ORDER BY t.player.id, t.id", Object[].class)
+                     .setFetchSize(FETCH_SIZE)
+                     .scroll(ScrollMode.FORWARD_ONLY);
+             ScrollableResults<Object[]> games = session.createQuery(
+                             "SELECT t.player.id, t.id, g.gameOrder, g.gameNaturalOrder, o.name, " +
+                                     "g.opponentRttfRating, g.opponentTtwRating, g.score, g.opponentScore, " +
+                                     "g.rttfDelta, g.ttwDelta " +
+                                     "FROM Game g JOIN g.tournament t LEFT JOIN g.opponent o " +
+                                     "ORDER BY t.player.id, t.id, g.id", Object[].class)
+                     .setFetchSize(FETCH_SIZE)
+                     .scroll(ScrollMode.FORWARD_ONLY)) {
+
+            Object[] tournamentRow = tournaments.next() ? tournaments.get() : null;
+            Object[] gameRow = games.next() ? games.get() : null;
+
+            while (players.next()) {
+                Object[] p = players.get();
+                Long playerId = (Long) p[0];
+                sink.player(Player.builder()
+                        .id(playerId)
+                        .fio((String) p[1])
+                        .rttfId((String) p[2])
+                        .ttwId((String) p[3])
+                        .rttfRating((Integer) p[4])
+                        .ttwRating((Integer) p[5])
+                        .build());
+
+                while (tournamentRow != null && Objects.equals(tournamentRow[0], playerId)) {
+                    Long tournamentId = (Long) tournamentRow[1];
+                    sink.tournament(Tournament.builder()
+                            .id(tournamentId)
+                            .date((LocalDate) tournamentRow[2])
+                            .place((Integer) tournamentRow[3])
+                            .rttfId((String) tournamentRow[4])
+                            .rttfName((String) tournamentRow[5])
+                            .rttfDelta((BigDecimal) tournamentRow[6])
+                            .ttwId((String) tournamentRow[7])
+                            .ttwName((String) tournamentRow[8])
+                            .ttwDelta((BigDecimal) tournamentRow[9])
+                            .build());
+
+                    while (gameRow != null && Objects.equals(gameRow[1], tournamentId)) {
+                        sink.game(Game.builder()
+                                .gameOrder((Integer) gameRow[2])
+                                .gameNaturalOrder((Integer) gameRow[3])
+                                .opponentName((String) gameRow[4])
+                                .opponentRttfRating((Integer) gameRow[5])
+                                .opponentTtwRating((Integer) gameRow[6])
+                                .score((Integer) gameRow[7])
+                                .opponentScore((Integer) gameRow[8])
+                                .rttfDelta((BigDecimal) gameRow[9])
+                                .ttwDelta((BigDecimal) gameRow[10])
+                                .build());
+                        gameRow = games.next() ? games.get() : null;
+                    }
+                    tournamentRow = tournaments.next() ? tournaments.get() : null;
+                }
+            }
+        } catch (UncheckedIOException e) {
+            // Ошибка записи файла из sink — вызывающий получает её как есть
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException("Ошибка экспорта базы", e);
+        }
+    }
+
+    public Importer openImporter() {
+        return new Importer(sessionFactory.openStatelessSession());
+    }
+
+    /**
+     * Запись импортируемых строк. Игроки и турниры вставляются по одному (нужны их ID),
+     * игры — пакетами JDBC со ссылкой на словарь соперников. Транзакция фиксируется на границе игрока каждые {@link #COMMIT_ROWS} строк.
+     */
+    public static class Importer implements AutoCloseable {
+
+        private static final int BATCH_SIZE = 500;
+        private static final int COMMIT_ROWS = 20_000;
+
+        private final StatelessSession session;
+        private Transaction tx;
+        private final List<Game> pendingGames = new ArrayList<>(BATCH_SIZE);
+        // Словарь соперников растёт с числом различных имён, а не с числом игр
+        private final Map<String, Long> opponentIds = new HashMap<>();
+        private int rowsSinceCommit;
+
+        private Importer(StatelessSession session) {
+            this.session = session;
+            this.tx = session.beginTransaction();
+        }
+
+        public boolean exists(Player player) {
+            return session.createQuery(
+                            "SELECT COUNT(p) FROM Player p WHERE TRIM(p.rttfId) = :rttfId OR TRIM(p.ttwId) = :ttwId",
+                            Long.class)
+                    .setParameter("rttfId", player.getRttfId() != null ? player.getRttfId().trim() : "")
+                    .setParameter("ttwId", player.getTtwId() != null ? player.getTtwId().trim() : "")
+                    .getSingleResult() > 0;
+        }
+
+        public void insert(Player player) {
+            flushGames();
+            if (rowsSinceCommit >= COMMIT_ROWS) {
+                tx.commit();
+                tx = session.beginTransaction();
+                rowsSinceCommit = 0;
+            }
+            player.setId(null);
+            session.insert(player);
+            rowsSinceCommit++;
+        }
+
+        public void insert(Tournament tournament) {
+            flushGames();
+            tournament.setId(null);
+            session.insert(tournament);
+            rowsSinceCommit++;
+        }
+
+        public void insert(Game game) {
+            pendingGames.add(game);
+            rowsSinceCommit++;
+            if (pendingGames.size() >= BATCH_SIZE) {
+                flushGames();
+            }
+        }
+
+        private void flushGames() {
+            if (pendingGames.isEmpty()) return;
+            session.doWork(connection -> {
+                try (PreparedStatement ps = connection.prepareStatement(
+                        "INSERT INTO GAMES (tournament_id, gameOrder, gameNaturalOrder, opponent_id, " +
+                                "opponentRttfRating, opponentTtwRating, score, opponentScore, " +
+                                "rttfDeltaCents, ttwDeltaCents) " +
+                                "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)")) {
+                    for (Game game : pendingGames) {
+                        ps.setLong(1, game.getTournament().getId());
+                        setInt(ps, 2, game.getGameOrder());
+                        setInt(ps, 3, game.getGameNaturalOrder());
+                        setLong(ps, 4, resolveOpponentId(connection, game.getOpponentName()));
+                        setInt(ps, 5, game.getOpponentRttfRating());
+                        setInt(ps, 6, game.getOpponentTtwRating());
+                        setInt(ps, 7, game.getScore());
+                        setInt(ps, 8, game.getOpponentScore());
+                        setInt(ps, 9, game.getRttfDelta() != null ? ScaledDecimalConverter.toScaled(game.getRttfDelta()) : null);
+                        setInt(ps, 10, game.getTtwDelta() != null ? ScaledDecimalConverter.toScaled(game.getTtwDelta()) : null);
+                        ps.addBatch();
+                    }
+                    ps.executeBatch();
+                }
+            });
+            pendingGames.clear();
+        }
+
+        private Long resolveOpponentId(Connection connection, String name) throws SQLException {
+            if (name == null) return null;
+            Long id = opponentIds.get(name);
+            if (id != null) return id;
+
+            try (PreparedStatement select = connection.prepareStatement("SELECT id FROM OPPONENTS WHERE name = ?")) {
+                select.setString(1, name);
+                try (ResultSet rs = select.executeQuery()) {
+                    if (rs.next()) id = rs.getLong(1);
+                }
+            }
+            if (id == null) {
+                try (PreparedStatement insert = connection.prepareStatement(
+                        "INSERT INTO OPPONENTS (name) VALUES (?)", Statement.RETURN_GENERATED_KEYS)) {
+                    insert.setString(1, name);
+                    insert.executeUpdate();
+                    try (ResultSet keys = insert.getGeneratedKeys()) {
+                        keys.next();
+                        id = keys.getLong(1);
+                    }
+                }
+            }
+            opponentIds.put(name, id);
+            return id;
+        }
+
+        private static void setLong(PreparedStatement ps, int index, Long value) throws SQLException {
+            if (value == null) {
+                ps.setNull(index, Types.BIGINT);
+            } else {
+                ps.setLong(index, value);
+            }
+        }
+
+        private static void setInt(PreparedStatement ps, int index, Integer value) throws SQLException {
+            if (value == null) {
+                ps.setNull(index, Types.INTEGER);
+            } else {
+                ps.setInt(index, value);
+            }
+        }
+
+        public void commit() {
+            flushGames();
+            tx.commit();
+        }
+
+        @Override
+        public void close() {
+            if (tx.isActive()) {
+                tx.rollback();
+            }
+            session.close();
+        }
+    }
+}
@@ -17,8 +17,11 @@ public class GameRepository {
     public List<Game> findByTournamentId(Long tournamentId) {
         try (Session session = sessionFactory.openSession()) {
             return session.createQuery(
-                            "FROM Game g WHERE g.tournament.id = :tournamentId ORDER BY g.gameNaturalOrder, g.gameOrder", Game.class)
+                            "FROM Game g LEFT JOIN FETCH g.opponent WHERE g.tournament.id = :tournamentId " +
+                                    "ORDER BY g.gameNaturalOrder, g.gameOrder", Game.class)
                     .setParameter("tournamentId", tournamentId)
+                    .setCacheable(true)
+                    .setCacheRegion("gamesByTournament")
                     .getResultList();
         } catch (Exception e) {
             throw new RuntimeException("Ошибка загрузки игр турнира ID=" + tournamentId, e);
@@ -0,0 +1,65 @@
+package org.pingpong.repository;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.pingpong.config.HibernateUtil;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Встречи игроков с соперниками из словаря: одна строка на игру, без загрузки сущностей.
+ */
+@Repository
+public class HeadToHeadRepository {
+
+    private final SessionFactory sessionFactory = HibernateUtil.getSessionFactory();
+
+    /**
+     * Встречи всех игроков (playerId == null) или одного игрока.
+     */
+    public List<Meeting> findMeetings(Long playerId) {
+        String filter = playerId != null ? " AND t.player.id = :playerId" : "";
+        try (Session session = sessionFactory.openSession()) {
+            var query = session.createQuery("""
+                            SELECT t.player.id, o.name, t.date, g.score, g.opponentScore, g.rttfDelta, g.ttwDelta
+                            FROM Game g JOIN g.tournament t JOIN g.opponent o
+                            WHERE 1 = 1""" + filter, Object[].class);
+            if (playerId != null) {
+                query.setParameter("playerId", playerId);
+            }
+
+            List<Meeting> meetings = new ArrayList<>();
+            for (Object[] row : query.getResultList()) {
+                meetings.add(new Meeting((Long) row[0], (String) row[1], (LocalDate) row[2],
+                        (Integer) row[3], (Integer) row[4], (BigDecimal) row[5], (BigDecimal) row[6]));
+            }
+            return meetings;
+        } catch (Exception e) {
+            throw new RuntimeException("Ошибка загрузки личных встреч" + (playerId != null ? " игрока ID=" + playerId : ""), e);
+        }
+    }
+
+    /**
+     * Дата последней встречи игрока с соперником или null, если встреч с датой нет.
+     */
+    public LocalDate findLastMeeting(Long playerId, String opponent) {
+        try (Session session = sessionFactory.openSession()) {
+            return session.createQuery("""
+                            SELECT MAX(t.date) FROM Game g JOIN g.tournament t JOIN g.opponent o
+                            WHERE t.player.id = :playerId AND o.name = :opponent""", LocalDate.class)
+                    .setParameter("playerId", playerId)
+                    .setParameter("opponent", opponent)
+                    .uniqueResult();
+        } catch (Exception e) {
+            throw new RuntimeException("Ошибка загрузки последней встречи игрока ID=" + playerId + " с " + opponent, e);
+        }
+    }
+
+    public record Meeting(Long playerId, String opponent, LocalDate date, Integer score, Integer opponentScore,
+                          BigDecimal rttfDelta, BigDecimal ttwDelta) {
+    }
+}
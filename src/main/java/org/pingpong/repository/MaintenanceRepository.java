@@ -0,0 +1,190 @@
+package org.pingpong.repository;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.pingpong.config.HibernateUtil;
+import org.springframework.stereotype.Repository;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Служебные операции над файлом H2: статистика планировщика, размер кэша MVStore,
+ * резервная копия и сжатие. Всё, кроме сжатия, выполняется на работающей базе.
+ */
+@Repository
+public class MaintenanceRepository {
+
+    private static final String URL_PREFIX = "jdbc:h2:";
+    private static final String FILE_SUFFIX = ".mv.db";
+
+    // Запросы, повторяющие основную нагрузку: сводка главной таблицы и турниры одного игрока
+    private static final List<String> PROBE_QUERIES = List.of(
+            "SELECT t.player_id, COUNT(*), MAX(t.date) FROM TOURNAMENTS t GROUP BY t.player_id",
+            "SELECT t.player_id, COUNT(*), SUM(CASE WHEN g.score > g.opponentScore THEN 1 ELSE 0 END) " +
+                    "FROM GAMES g JOIN TOURNAMENTS t ON t.id = g.tournament_id GROUP BY t.player_id",
+            "SELECT * FROM TOURNAMENTS t WHERE t.player_id = (SELECT MAX(player_id) FROM TOURNAMENTS) " +
+                    "ORDER BY t.date DESC"
+    );
+    private static final int PROBE_ROUNDS = 3;
+
+    private final SessionFactory sessionFactory = HibernateUtil.getSessionFactory();
+
+    public Path getDatabaseFile() {
+        String name = HibernateUtil.getUrl().substring(URL_PREFIX.length());
+        int options = name.indexOf(';');
+        return Path.of((options >= 0 ? name.substring(0, options) : name) + FILE_SUFFIX);
+    }
+
+    public long getFileSize() {
+        try {
+            Path file = getDatabaseFile();
+            return Files.exists(file) ? Files.size(file) : 0;
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Лучшее из нескольких прогонов пробных запросов, мс. Для сравнения до и после
+     * обслуживания берётся установившееся время, а не первый холодный прогон.
+     */
+    public long probeLatency() {
+        return withConnection(MaintenanceRepository::probeLatency);
+    }
+
+    /**
+     * То же на отдельном соединении — когда фабрика сессий уже закрыта (после сжатия).
+     */
+    public long probeLatencyDirect() {
+        try (Connection connection = HibernateUtil.openConnection()) {
+            return probeLatency(connection);
+        } catch (SQLException e) {
+            throw new RuntimeException("Ошибка пробных запросов", e);
+        }
+    }
+
+    public void analyze() {
+        withConnection(connection -> execute(connection, "ANALYZE"));
+    }
+
+    /**
+     * Текущий размер кэша MVStore в КБ; пока он не задан явно, H2 сообщает только info.CACHE_MAX_SIZE в МБ.
+     */
+    public int getCacheSizeKb() {
+        return withConnection(connection -> {
+            Map<String, String> info = readSettings(connection);
+            String explicit = info.get("CACHE_SIZE");
+            if (explicit != null) return Integer.parseInt(explicit);
+            return Integer.parseInt(info.getOrDefault("info.CACHE_MAX_SIZE", "0")) * 1024;
+        });
+    }
+
+    /**
+     * Объём живых данных всех таблиц по оценке H2. После удалений и перезаписей
+     * он заметно меньше размера файла, поэтому кэш подбирается по нему.
+     */
+    public long getLiveDataSize() {
+        return withConnection(connection -> {
+            try (Statement statement = connection.createStatement();
+                 ResultSet rs = statement.executeQuery(
+                         "SELECT SUM(DISK_SPACE_USED(TABLE_SCHEMA || '.' || TABLE_NAME)) " +
+                                 "FROM INFORMATION_SCHEMA.TABLES WHERE TABLE_SCHEMA = 'PUBLIC'")) {
+                return rs.next() ? rs.getLong(1) : 0L;
+            }
+        });
+    }
+
+    /**
+     * Размер кэша страниц MVStore в КБ. Настройка сохраняется в самой базе.
+     */
+    public void setCacheSizeKb(int cacheSizeKb) {
+        withConnection(connection -> execute(connection, "SET CACHE_SIZE " + cacheSizeKb));
+    }
+
+    /**
+     * Онлайн-копия базы в zip; читатели и писатели в это время не блокируются.
+     */
+    public void backupTo(Path zip) {
+        withConnection(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement("BACKUP TO ?")) {
+                statement.setString(1, zip.toAbsolutePath().toString());
+                statement.execute();
+            }
+            return null;
+        });
+    }
+
+    /**
+     * SHUTDOWN COMPACT переписывает файл без мёртвых страниц. Требует базу целиком,
+     * поэтому фабрика сессий закрывается; после вызова работать с Hibernate уже нельзя.
+     */
+    public void compact() {
+        HibernateUtil.shutdown();
+        try (Connection connection = HibernateUtil.openConnection()) {
+            execute(connection, "SHUTDOWN COMPACT");
+        } catch (SQLException e) {
+            throw new RuntimeException("Ошибка сжатия базы", e);
+        }
+    }
+
+    private static Map<String, String> readSettings(Connection connection) throws SQLException {
+        Map<String, String> settings = new HashMap<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT SETTING_NAME, SETTING_VALUE FROM INFORMATION_SCHEMA.SETTINGS")) {
+            while (rs.next()) {
+                settings.put(rs.getString(1), rs.getString(2));
+            }
+        }
+        return settings;
+    }
+
+    private static long probeLatency(Connection connection) throws SQLException {
+        long best = Long.MAX_VALUE;
+        try (Statement statement = connection.createStatement()) {
+            for (int round = 0; round < PROBE_ROUNDS; round++) {
+                // H2 отдаёт повторный запрос из кэша результатов, пока таблицы не менялись;
+                // уникальный комментарий заставляет выполнить его заново
+                String nonce = " /* probe " + System.nanoTime() + " */";
+                long start = System.nanoTime();
+                for (String sql : PROBE_QUERIES) {
+                    try (ResultSet rs = statement.executeQuery(sql + nonce)) {
+                        while (rs.next()) {
+                            rs.getObject(1);
+                        }
+                    }
+                }
+                best = Math.min(best, (System.nanoTime() - start) / 1_000_000);
+            }
+        }
+        return best;
+    }
+
+    private static Void execute(Connection connection, String sql) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+        return null;
+    }
+
+    private interface ConnectionWork<T> {
+        T execute(Connection connection) throws SQLException;
+    }
+
+    private <T> T withConnection(ConnectionWork<T> work) {
+        try (Session session = sessionFactory.openSession()) {
+            return session.doReturningWork(work::execute);
+        } catch (Exception e) {
+            throw new RuntimeException("Ошибка обслуживания базы", e);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package org.pingpong.repository;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.pingpong.config.HibernateUtil;
+import org.pingpong.model.Game;
+import org.pingpong.model.Opponent;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Словарь соперников. Имена уже канонические (Utils.shortenFio применяется при парсинге),
+ * поэтому ищутся как есть. Найденные ID запоминаются на всё время работы приложения.
+ * <p>
+ * Новое имя добавляется в отдельной короткой транзакции под общей блокировкой: параллельные
+ * синхронизации сразу видят его и не пытаются вставить то же имя второй раз в обход UNIQUE(name).
+ * Запись словаря остаётся и при откате синхронизации, которая её добавила.
+ */
+@Repository
+public class OpponentRepository {
+
+    private final Map<String, Long> idCache = new ConcurrentHashMap<>();
+    private final Object insertLock = new Object();
+
+    private final SessionFactory sessionFactory = HibernateUtil.getSessionFactory();
+
+    /**
+     * Привязывает игры к записям словаря, добавляя недостающие имена. Вызывается внутри транзакции.
+     */
+    public void attach(Session session, List<Game> games) {
+        if (games == null) return;
+        for (Game game : games) {
+            attach(session, game);
+        }
+    }
+
+    public void attach(Session session, Game game) {
+        String name = game.getOpponentName();
+        if (name == null) {
+            game.setOpponent(null);
+            return;
+        }
+        if (game.getOpponent() == null || !name.equals(game.getOpponent().getName())) {
+            game.setOpponent(resolve(session, name));
+        }
+    }
+
+    public Opponent resolve(Session session, String name) {
+        Long id = idCache.get(name);
+        if (id == null) {
+            Opponent opponent = session.createQuery("FROM Opponent o WHERE o.name = :name", Opponent.class)
+                    .setParameter("name", name)
+                    .uniqueResult();
+            if (opponent != null) {
+                idCache.put(name, opponent.getId());
+                return opponent;
+            }
+            id = insert(name);
+        }
+        return session.getReference(Opponent.class, id);
+    }
+
+    /**
+     * Добавляет имя и сразу фиксирует; если другой поток успел добавить его раньше, возвращает его ID.
+     */
+    private Long insert(String name) {
+        synchronized (insertLock) {
+            Long cached = idCache.get(name);
+            if (cached != null) return cached;
+
+            try (Session session = sessionFactory.openSession()) {
+                Transaction tx = session.beginTransaction();
+                try {
+                    Opponent opponent = session.createQuery("FROM Opponent o WHERE o.name = :name", Opponent.class)
+                            .setParameter("name", name)
+                            .uniqueResult();
+                    if (opponent == null) {
+                        opponent = new Opponent(name);
+                        session.persist(opponent);
+                    }
+                    tx.commit();
+                    idCache.put(name, opponent.getId());
+                    return opponent.getId();
+                } catch (Exception e) {
+                    tx.rollback();
+                    throw e;
+                }
+            } catch (Exception e) {
+                throw new RuntimeException("Ошибка добавления соперника " + name, e);
+            }
+        }
+    }
+}
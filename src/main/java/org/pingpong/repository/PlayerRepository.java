@@ -1,19 +1,39 @@
 package org.pingpong.repository;
 
 import org.hibernate.Hibernate;
+import org.pingpong.NameDictionary;
 import org.pingpong.config.HibernateUtil;
+import org.pingpong.model.Game;
 import org.pingpong.model.Player;
 import org.hibernate.Session;
 import org.hibernate.Transaction;
+import org.pingpong.model.PlayerStats;
 import org.pingpong.model.Tournament;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 
 @Repository
 public class PlayerRepository {
 
+    private static final int BULK_CHUNK = 500;
+
     private final org.hibernate.SessionFactory sessionFactory = HibernateUtil.getSessionFactory();
+    private final OpponentRepository opponentRepository;
+
+    public PlayerRepository(OpponentRepository opponentRepository) {
+        this.opponentRepository = opponentRepository;
+    }
 
     public Player findByRttfId(String rttfId) {
         try (Session session = sessionFactory.openSession()) {
@@ -52,23 +72,562 @@ public class PlayerRepository {
         }
     }
 
-    public void save(Player player) {
+    /**
+     * Игроки без графа турниров: статистика считается агрегатами SQL (GROUP BY по TOURNAMENTS/GAMES).
+     * Список турниров у возвращаемых игроков не загружен (null) — полный граф поднимается отдельно.
+     */
+    public List<Player> findAllSummaries() {
+        List<Player> players = findAllWithoutStats();
+        Map<Long, PlayerStats> statsByPlayer = findAllStats();
+        for (Player player : players) {
+            player.setStats(statsByPlayer.getOrDefault(player.getId(), new PlayerStats()));
+        }
+        return players;
+    }
+
+    /**
+     * Только строки PLAYERS, без статистики и графа турниров: быстрый первый показ таблицы.
+     */
+    public List<Player> findAllWithoutStats() {
+        try (Session session = sessionFactory.openSession()) {
+            List<Player> players = session.createQuery("FROM Player p ORDER BY p.id", Player.class)
+                    .getResultList();
+            for (Player player : players) {
+                player.setTournamentList(null); // граф турниров не загружен
+            }
+            return players;
+        }
+    }
+
+    /**
+     * Статистика всех игроков по ID теми же агрегатами, что и {@link #findAllSummaries()}.
+     * Игроков без турниров в ней нет.
+     */
+    public Map<Long, PlayerStats> findAllStats() {
+        try (Session session = sessionFactory.openSession()) {
+            return aggregateStats(session, null);
+        }
+    }
+
+    /**
+     * Статистика одного игрока по текущему состоянию БД теми же агрегатами, что и {@link #findAllSummaries()}.
+     */
+    public PlayerStats findStats(Long playerId) {
+        try (Session session = sessionFactory.openSession()) {
+            return aggregateStats(session, playerId).getOrDefault(playerId, new PlayerStats());
+        }
+    }
+
+    /**
+     * Дата последнего турнира игрока или LocalDate.MIN, если турниров с датой нет.
+     */
+    public LocalDate findLastTournamentDate(Long playerId) {
+        try (Session session = sessionFactory.openSession()) {
+            LocalDate last = session.createQuery(
+                            "SELECT MAX(t.date) FROM Tournament t WHERE t.player.id = :playerId", LocalDate.class)
+                    .setParameter("playerId", playerId)
+                    .uniqueResult();
+            return last != null ? last : LocalDate.MIN;
+        }
+    }
+
+    /**
+     * Агрегаты по всем игрокам или, если playerId задан, по одному.
+     */
+    private static Map<Long, PlayerStats> aggregateStats(Session session, Long playerId) {
+        String filter = playerId != null ? "WHERE t.player.id = :playerId" : "";
+        Map<Long, PlayerStats> statsByPlayer = new HashMap<>();
+
+        var tourQuery = session.createQuery("""
+                        SELECT t.player.id,
+                               COUNT(t),
+                               SUM(CASE WHEN t.rttfName IS NOT NULL AND TRIM(t.rttfName) <> '' THEN 1 ELSE 0 END),
+                               SUM(CASE WHEN t.ttwName IS NOT NULL AND TRIM(t.ttwName) <> '' THEN 1 ELSE 0 END),
+                               SUM(CASE WHEN t.place = 1 THEN 1 ELSE 0 END),
+                               SUM(CASE WHEN t.place = 2 THEN 1 ELSE 0 END),
+                               SUM(CASE WHEN t.place = 3 THEN 1 ELSE 0 END),
+                               MAX(t.date)
+                        FROM Tournament t
+                        """ + filter + " GROUP BY t.player.id", Object[].class);
+
+        if (playerId != null) {
+            tourQuery.setParameter("playerId", playerId);
+        }
+
+        for (Object[] row : tourQuery.getResultList()) {
+            PlayerStats stats = new PlayerStats();
+            stats.setTotalTours(toInt(row[1]));
+            stats.setRttfTours(toInt(row[2]));
+            stats.setTtwTours(toInt(row[3]));
+            stats.setFirstPlaces(toInt(row[4]));
+            stats.setSecondPlaces(toInt(row[5]));
+            stats.setThirdPlaces(toInt(row[6]));
+            stats.setLastGameDate(row[7] != null ? (LocalDate) row[7] : LocalDate.MIN);
+            statsByPlayer.put((Long) row[0], stats);
+        }
+
+        var gameQuery = session.createQuery("""
+                        SELECT t.player.id,
+                               SUM(CASE WHEN g.score > g.opponentScore THEN 1 ELSE 0 END),
+                               SUM(CASE WHEN g.score < g.opponentScore THEN 1 ELSE 0 END),
+                               SUM(CASE WHEN g.score > g.opponentScore AND g.rttfDelta IS NOT NULL
+                                        AND t.rttfName IS NOT NULL AND TRIM(t.rttfName) <> '' THEN 1 ELSE 0 END),
+                               SUM(CASE WHEN g.score < g.opponentScore AND g.rttfDelta IS NOT NULL
+                                        AND t.rttfName IS NOT NULL AND TRIM(t.rttfName) <> '' THEN 1 ELSE 0 END),
+                               SUM(CASE WHEN g.score > g.opponentScore AND g.ttwDelta IS NOT NULL
+                                        AND t.ttwName IS NOT NULL AND TRIM(t.ttwName) <> '' THEN 1 ELSE 0 END),
+                               SUM(CASE WHEN g.score < g.opponentScore AND g.ttwDelta IS NOT NULL
+                                        AND t.ttwName IS NOT NULL AND TRIM(t.ttwName) <> '' THEN 1 ELSE 0 END)
+                        FROM Game g JOIN g.tournament t
+                        """ + filter + " GROUP BY t.player.id", Object[].class);
+        if (playerId != null) {
+            gameQuery.setParameter("playerId", playerId);
+        }
+
+        for (Object[] row : gameQuery.getResultList()) {
+            PlayerStats stats = statsByPlayer.get((Long) row[0]);
+            if (stats == null) continue;
+            stats.setTotalWins(toInt(row[1]));
+            stats.setTotalLosses(toInt(row[2]));
+            stats.setRttfWins(toInt(row[3]));
+            stats.setRttfLosses(toInt(row[4]));
+            stats.setTtwWins(toInt(row[5]));
+            stats.setTtwLosses(toInt(row[6]));
+        }
+        return statsByPlayer;
+    }
+
+    /**
+     * Итоги каждого турнира с датой по тем же правилам, что и {@link #aggregateStats}, по возрастанию
+     * игрока и даты: (player_id, date, турнир RTTF 0/1, турнир TTW 0/1, place, rttfDelta, ttwDelta,
+     * побед, поражений, побед RTTF, поражений RTTF, побед TTW, поражений TTW).
+     * Если playerId задан — только по одному игроку.
+     */
+    public List<Object[]> findTournamentTotals(Long playerId) {
+        String filter = playerId != null ? "AND t.player.id = :playerId" : "";
+        try (Session session = sessionFactory.openSession()) {
+            var query = session.createQuery("""
+                            SELECT t.player.id, t.date,
+                                   CASE WHEN t.rttfName IS NOT NULL AND TRIM(t.rttfName) <> '' THEN 1 ELSE 0 END,
+                                   CASE WHEN t.ttwName IS NOT NULL AND TRIM(t.ttwName) <> '' THEN 1 ELSE 0 END,
+                                   t.place, t.rttfDelta, t.ttwDelta,
+                                   SUM(CASE WHEN g.score > g.opponentScore THEN 1 ELSE 0 END),
+                                   SUM(CASE WHEN g.score < g.opponentScore THEN 1 ELSE 0 END),
+                                   SUM(CASE WHEN g.score > g.opponentScore AND g.rttfDelta IS NOT NULL
+                                            AND t.rttfName IS NOT NULL AND TRIM(t.rttfName) <> '' THEN 1 ELSE 0 END),
+                                   SUM(CASE WHEN g.score < g.opponentScore AND g.rttfDelta IS NOT NULL
+                                            AND t.rttfName IS NOT NULL AND TRIM(t.rttfName) <> '' THEN 1 ELSE 0 END),
+                                   SUM(CASE WHEN g.score > g.opponentScore AND g.ttwDelta IS NOT NULL
+                                            AND t.ttwName IS NOT NULL AND TRIM(t.ttwName) <> '' THEN 1 ELSE 0 END),
+                                   SUM(CASE WHEN g.score < g.opponentScore AND g.ttwDelta IS NOT NULL
+                                            AND t.ttwName IS NOT NULL AND TRIM(t.ttwName) <> '' THEN 1 ELSE 0 END)
+                            FROM Tournament t LEFT JOIN t.games g
+                            WHERE t.date IS NOT NULL
+                            """ + filter + """
+                             GROUP BY t.id, t.player.id, t.date, t.rttfName, t.ttwName, t.place, t.rttfDelta, t.ttwDelta
+                            ORDER BY t.player.id, t.date, t.id
+                            """, Object[].class);
+            if (playerId != null) {
+                query.setParameter("playerId", playerId);
+            }
+            return query.getResultList();
+        } catch (Exception e) {
+            throw new RuntimeException("Ошибка загрузки итогов турниров", e);
+        }
+    }
+
+    /**
+     * Синхронизирует турниры игрока после даты {@code dateFrom} с загруженными с сайтов.
+     * Турниры сопоставляются по (дата, rttfId / ttwId), игры — по сопернику и счёту; выполняются только
+     * необходимые INSERT/UPDATE/DELETE в одной транзакции.
+     * О каждом вставленном, изменённом и удалённом турнире сообщается {@code listener}.
+     */
+    public SyncResult sync(Player player, LocalDate dateFrom, List<Tournament> incoming,
+                           TournamentChangeListener listener) {
+        try (Session session = sessionFactory.openSession()) {
+            Transaction tx = session.beginTransaction();
+            try {
+                SyncCounter counter = new SyncCounter();
+
+                Player managed = player.getId() != null ? session.get(Player.class, player.getId()) : null;
+                if (managed == null) {
+                    managed = Player.builder()
+                            .fio(player.getFio())
+                            .rttfId(player.getRttfId())
+                            .ttwId(player.getTtwId())
+                            .rttfRating(player.getRttfRating())
+                            .ttwRating(player.getTtwRating())
+                            .build();
+                    session.persist(managed);
+                    player.setId(managed.getId());
+                } else {
+                    managed.setFio(player.getFio());
+                    managed.setRttfRating(player.getRttfRating());
+                    managed.setTtwRating(player.getTtwRating());
+                }
+
+                if (incoming.isEmpty()) {
+                    // Сопоставлять нечего: всё после даты удаляется без загрузки графа
+                    counter.deleted += deleteTournamentsAfter(session, managed.getId(), dateFrom);
+                    tx.commit();
+                    listener.reset();
+                    return new SyncResult(counter.inserted, counter.updated, counter.deleted);
+                }
+
+                List<Tournament> existing = findTournamentsAfter(session, managed.getId(), dateFrom);
+                TournamentIndex index = new TournamentIndex(existing);
+
+                for (Tournament tournament : incoming) {
+                    Tournament match = index.take(tournament);
+                    if (match == null) {
+                        tournament.setPlayer(managed);
+                        opponentRepository.attach(session, tournament.getGames());
+                        session.persist(tournament);
+                        counter.inserted += 1 + sizeOf(tournament.getGames());
+                        listener.added(tournament);
+                    } else {
+                        listener.removed(match);
+                        if (copyTournamentFields(tournament, match)) counter.updated++;
+                        syncGames(session, match, tournament.getGames(), counter);
+                        listener.added(match);
+                    }
+                }
+
+                // Лишние турниры удаляются массово; из сессии их убираем, чтобы flush их не трогал
+                List<Long> staleIds = new ArrayList<>();
+                for (Tournament stale : index.remaining()) {
+                    counter.deleted += 1 + sizeOf(stale.getGames());
+                    staleIds.add(stale.getId());
+                    listener.removed(stale);
+                    session.detach(stale);
+                }
+                deleteTournaments(session, staleIds);
+
+                tx.commit();
+                return new SyncResult(counter.inserted, counter.updated, counter.deleted);
+            } catch (Exception e) {
+                tx.rollback();
+                throw e;
+            }
+        } catch (Exception e) {
+            throw new RuntimeException("Ошибка синхронизации турниров игрока " + player.getFio(), e);
+        }
+    }
+
+    /**
+     * Удаляет турниры игрока после даты вместе с играми двумя массовыми DELETE, не загружая их.
+     * Возвращает число удалённых строк (турниры и игры).
+     */
+    public int deleteTournamentsAfter(Long playerId, LocalDate dateFrom) {
         try (Session session = sessionFactory.openSession()) {
             Transaction tx = session.beginTransaction();
-            if (player.getId() == null) {
-                session.persist(player);
-            } else {
-                session.merge(player);
+            try {
+                int deleted = deleteTournamentsAfter(session, playerId, dateFrom);
+                tx.commit();
+                return deleted;
+            } catch (Exception e) {
+                tx.rollback();
+                throw e;
+            }
+        } catch (Exception e) {
+            throw new RuntimeException("Ошибка удаления турниров игрока ID=" + playerId + " после " + dateFrom, e);
+        }
+    }
+
+    private static int deleteTournamentsAfter(Session session, Long playerId, LocalDate dateFrom) {
+        boolean all = LocalDate.MIN.equals(dateFrom);
+        String condition = "t.player.id = :playerId AND " + (all ? "t.date IS NOT NULL" : "t.date > :dateFrom");
+
+        var games = session.createMutationQuery(
+                        "DELETE FROM Game g WHERE g.tournament.id IN (SELECT t.id FROM Tournament t WHERE " + condition + ")")
+                .setParameter("playerId", playerId);
+        var tournaments = session.createMutationQuery("DELETE FROM Tournament t WHERE " + condition)
+                .setParameter("playerId", playerId);
+        if (!all) {
+            games.setParameter("dateFrom", dateFrom);
+            tournaments.setParameter("dateFrom", dateFrom);
+        }
+        return games.executeUpdate() + tournaments.executeUpdate();
+    }
+
+    /**
+     * Массовое удаление турниров по id: сначала их игры, затем сами турниры.
+     * Кэш турниров, игр и зависящих запросов Hibernate сбрасывает сам.
+     */
+    private static int deleteTournaments(Session session, List<Long> ids) {
+        int deleted = 0;
+        for (int from = 0; from < ids.size(); from += BULK_CHUNK) {
+            List<Long> chunk = ids.subList(from, Math.min(ids.size(), from + BULK_CHUNK));
+            deleted += session.createMutationQuery("DELETE FROM Game g WHERE g.tournament.id IN :ids")
+                    .setParameterList("ids", chunk)
+                    .executeUpdate();
+            deleted += session.createMutationQuery("DELETE FROM Tournament t WHERE t.id IN :ids")
+                    .setParameterList("ids", chunk)
+                    .executeUpdate();
+        }
+        return deleted;
+    }
+
+    private List<Tournament> findTournamentsAfter(Session session, Long playerId, LocalDate dateFrom) {
+        if (LocalDate.MIN.equals(dateFrom)) {
+            return session.createQuery(
+                            "SELECT DISTINCT t FROM Tournament t LEFT JOIN FETCH t.games " +
+                                    "WHERE t.player.id = :playerId AND t.date IS NOT NULL", Tournament.class)
+                    .setParameter("playerId", playerId)
+                    .getResultList();
+        }
+        return session.createQuery(
+                        "SELECT DISTINCT t FROM Tournament t LEFT JOIN FETCH t.games " +
+                                "WHERE t.player.id = :playerId AND t.date > :dateFrom", Tournament.class)
+                .setParameter("playerId", playerId)
+                .setParameter("dateFrom", dateFrom)
+                .getResultList();
+    }
+
+    /**
+     * Игры сопоставляются по (канонический соперник, счёт, номер среди игр с этим соперником и счётом),
+     * а не по gameOrder: gameOrder — номер после сортировки по сопернику, и одна новая игра сдвигает его
+     * у всех следующих. Оставшиеся без пары игры с тем же соперником сопоставляются по порядку —
+     * это исправленный счёт, он обновляется на месте. gameOrder совпавших игр не переписывается.
+     */
+    private void syncGames(Session session, Tournament managed, List<Game> incoming, SyncCounter counter) {
+        if (managed.getGames() == null) {
+            managed.setGames(new ArrayList<>());
+        }
+
+        Map<GameMatchKey, Game> existingByKey = new LinkedHashMap<>();
+        Map<GameMatchKey, Integer> occurrences = new HashMap<>();
+        for (Game game : inRoundOrder(managed.getGames())) {
+            existingByKey.put(GameMatchKey.of(game, occurrences), game);
+        }
+
+        List<Game> unmatched = new ArrayList<>();
+        occurrences.clear();
+        for (Game game : inRoundOrder(incoming)) {
+            Game match = existingByKey.remove(GameMatchKey.of(game, occurrences));
+            if (match == null) {
+                unmatched.add(game);
+            } else if (copyGameFields(game, match)) {
+                opponentRepository.attach(session, match);
+                counter.updated++;
+            }
+        }
+
+        // Второй проход: у игры с тем же соперником изменился счёт
+        Map<Integer, List<Game>> staleByOpponent = new HashMap<>();
+        for (Game stale : existingByKey.values()) {
+            staleByOpponent.computeIfAbsent(NameDictionary.id(stale.getOpponentName()), k -> new ArrayList<>()).add(stale);
+        }
+        for (Game game : unmatched) {
+            List<Game> candidates = staleByOpponent.get(NameDictionary.id(game.getOpponentName()));
+            Game match = candidates != null && !candidates.isEmpty() ? candidates.remove(0) : null;
+            if (match == null) {
+                game.setTournament(managed);
+                opponentRepository.attach(session, game);
+                managed.getGames().add(game);
+                session.persist(game);
+                counter.inserted++;
+            } else if (copyGameFields(game, match)) {
+                opponentRepository.attach(session, match);
+                counter.updated++;
+            }
+        }
+
+        // Оставшиеся игры удаляются через orphanRemoval
+        for (List<Game> stale : staleByOpponent.values()) {
+            for (Game game : stale) {
+                managed.getGames().remove(game);
+                counter.deleted++;
+            }
+        }
+    }
+
+    private static List<Game> inRoundOrder(List<Game> games) {
+        if (games == null) return List.of();
+        List<Game> sorted = new ArrayList<>(games);
+        sorted.sort(Comparator
+                .comparing(Game::getGameNaturalOrder, Comparator.nullsLast(Comparator.naturalOrder()))
+                .thenComparing(Game::getGameOrder, Comparator.nullsLast(Comparator.naturalOrder())));
+        return sorted;
+    }
+
+    /**
+     * Ключ сопоставления игры; {@code occurrence} различает одинаковые игры с одним соперником.
+     */
+    private record GameMatchKey(int opponentId, Integer score, Integer opponentScore, int occurrence) {
+
+        static GameMatchKey of(Game game, Map<GameMatchKey, Integer> occurrences) {
+            GameMatchKey first = new GameMatchKey(NameDictionary.id(game.getOpponentName()),
+                    game.getScore(), game.getOpponentScore(), 0);
+            int occurrence = occurrences.merge(first, 1, Integer::sum) - 1;
+            return occurrence == 0 ? first : new GameMatchKey(first.opponentId, first.score, first.opponentScore, occurrence);
+        }
+    }
+
+    private static boolean copyTournamentFields(Tournament source, Tournament target) {
+        boolean changed = false;
+        if (!Objects.equals(source.getDate(), target.getDate())) {
+            target.setDate(source.getDate());
+            changed = true;
+        }
+        // Место, заданное вручную или найденное ранее, не затираем пустым значением
+        if (source.getPlace() != null && !Objects.equals(source.getPlace(), target.getPlace())) {
+            target.setPlace(source.getPlace());
+            changed = true;
+        }
+        if (!Objects.equals(source.getRttfId(), target.getRttfId())) {
+            target.setRttfId(source.getRttfId());
+            changed = true;
+        }
+        if (!Objects.equals(source.getRttfName(), target.getRttfName())) {
+            target.setRttfName(source.getRttfName());
+            changed = true;
+        }
+        if (!sameDecimal(source.getRttfDelta(), target.getRttfDelta())) {
+            target.setRttfDelta(source.getRttfDelta());
+            changed = true;
+        }
+        if (!Objects.equals(source.getTtwId(), target.getTtwId())) {
+            target.setTtwId(source.getTtwId());
+            changed = true;
+        }
+        if (!Objects.equals(source.getTtwName(), target.getTtwName())) {
+            target.setTtwName(source.getTtwName());
+            changed = true;
+        }
+        if (!sameDecimal(source.getTtwDelta(), target.getTtwDelta())) {
+            target.setTtwDelta(source.getTtwDelta());
+            changed = true;
+        }
+        return changed;
+    }
+
+    private static boolean copyGameFields(Game source, Game target) {
+        boolean changed = false;
+        if (!Objects.equals(source.getGameNaturalOrder(), target.getGameNaturalOrder())) {
+            target.setGameNaturalOrder(source.getGameNaturalOrder());
+            changed = true;
+        }
+        if (!Objects.equals(source.getOpponentName(), target.getOpponentName())) {
+            target.setOpponentName(source.getOpponentName());
+            changed = true;
+        }
+        if (!Objects.equals(source.getOpponentRttfRating(), target.getOpponentRttfRating())) {
+            target.setOpponentRttfRating(source.getOpponentRttfRating());
+            changed = true;
+        }
+        if (!Objects.equals(source.getOpponentTtwRating(), target.getOpponentTtwRating())) {
+            target.setOpponentTtwRating(source.getOpponentTtwRating());
+            changed = true;
+        }
+        if (!Objects.equals(source.getScore(), target.getScore())) {
+            target.setScore(source.getScore());
+            changed = true;
+        }
+        if (!Objects.equals(source.getOpponentScore(), target.getOpponentScore())) {
+            target.setOpponentScore(source.getOpponentScore());
+            changed = true;
+        }
+        if (!sameDecimal(source.getRttfDelta(), target.getRttfDelta())) {
+            target.setRttfDelta(source.getRttfDelta());
+            changed = true;
+        }
+        if (!sameDecimal(source.getTtwDelta(), target.getTtwDelta())) {
+            target.setTtwDelta(source.getTtwDelta());
+            changed = true;
+        }
+        return changed;
+    }
+
+    private static boolean sameDecimal(BigDecimal a, BigDecimal b) {
+        if (a == null || b == null) return a == b;
+        return a.compareTo(b) == 0;
+    }
+
+    private static int sizeOf(List<?> list) {
+        return list != null ? list.size() : 0;
+    }
+
+    /**
+     * Результат синхронизации: количество вставленных, изменённых и удалённых строк (турниры и игры).
+     */
+    public record SyncResult(int inserted, int updated, int deleted) {}
+
+    private static class SyncCounter {
+        int inserted;
+        int updated;
+        int deleted;
+    }
+
+    /**
+     * Индекс существующих турниров по естественным ключам: (дата, rttfId) и (дата, ttwId).
+     */
+    private static class TournamentIndex {
+        private final Map<String, Tournament> byRttf = new HashMap<>();
+        private final Map<String, Tournament> byTtw = new HashMap<>();
+        private final Set<Tournament> unmatched = new LinkedHashSet<>();
+
+        TournamentIndex(List<Tournament> tournaments) {
+            for (Tournament t : tournaments) {
+                if (t.getRttfId() != null) byRttf.putIfAbsent(key(t.getDate(), t.getRttfId()), t);
+                if (t.getTtwId() != null) byTtw.putIfAbsent(key(t.getDate(), t.getTtwId()), t);
+                unmatched.add(t);
             }
-            tx.commit();
+        }
+
+        Tournament take(Tournament incoming) {
+            Tournament match = null;
+            if (incoming.getRttfId() != null) {
+                match = byRttf.get(key(incoming.getDate(), incoming.getRttfId()));
+            }
+            if ((match == null || !unmatched.contains(match)) && incoming.getTtwId() != null) {
+                match = byTtw.get(key(incoming.getDate(), incoming.getTtwId()));
+            }
+            if (match == null || !unmatched.remove(match)) {
+                return null;
+            }
+            return match;
+        }
+
+        Iterable<Tournament> remaining() {
+            return unmatched;
+        }
+
+        private static String key(LocalDate date, String sourceId) {
+            return date + "|" + sourceId;
         }
     }
 
+    /**
+     * Удаляет игрока тремя массовыми DELETE (игры, турниры, игрок) вместо загрузки графа
+     * и каскадного удаления по строке.
+     */
     public void delete(Player player) {
         try (Session session = sessionFactory.openSession()) {
             Transaction tx = session.beginTransaction();
-            session.remove(session.get(Player.class, player.getId()));
-            tx.commit();
+            try {
+                session.createMutationQuery(
+                                "DELETE FROM Game g WHERE g.tournament.id IN " +
+                                        "(SELECT t.id FROM Tournament t WHERE t.player.id = :playerId)")
+                        .setParameter("playerId", player.getId())
+                        .executeUpdate();
+                session.createMutationQuery("DELETE FROM Tournament t WHERE t.player.id = :playerId")
+                        .setParameter("playerId", player.getId())
+                        .executeUpdate();
+                session.createMutationQuery("DELETE FROM Player p WHERE p.id = :playerId")
+                        .setParameter("playerId", player.getId())
+                        .executeUpdate();
+                tx.commit();
+            } catch (Exception e) {
+                tx.rollback();
+                throw e;
+            }
+        } catch (Exception e) {
+            throw new RuntimeException("Ошибка удаления игрока ID=" + player.getId(), e);
         }
     }
+
+    private static int toInt(Object value) {
+        return value != null ? ((Number) value).intValue() : 0;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,77 @@
+package org.pingpong.repository;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.pingpong.config.HibernateUtil;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Выборки для модели исхода игр: текущие рейтинги игроков, дельты турниров и игры с рейтингами
+ * соперников. Только проекции, без загрузки сущностей.
+ */
+@Repository
+public class PredictionRepository {
+
+    private final SessionFactory sessionFactory = HibernateUtil.getSessionFactory();
+
+    /**
+     * Строки (id, rttfRating, ttwRating).
+     */
+    public List<Object[]> findPlayerRatings() {
+        try (Session session = sessionFactory.openSession()) {
+            return session.createQuery("SELECT p.id, p.rttfRating, p.ttwRating FROM Player p", Object[].class)
+                    .getResultList();
+        } catch (Exception e) {
+            throw new RuntimeException("Ошибка загрузки рейтингов игроков", e);
+        }
+    }
+
+    /**
+     * Строки (id игрока, дата, id турнира, rttfDelta турнира, ttwDelta турнира, рейтинг соперника RTTF, TTW,
+     * счёт, счёт соперника, rttfDelta игры, ttwDelta игры) по игрокам и от новых турниров к старым.
+     * Турниры без игр тоже попадают (поля игры null): их дельты нужны для восстановления рейтинга.
+     */
+    public List<Object[]> findTournamentGames() {
+        try (Session session = sessionFactory.openSession()) {
+            return session.createQuery("""
+                            SELECT t.player.id, t.date, t.id, t.rttfDelta, t.ttwDelta,
+                                   g.opponentRttfRating, g.opponentTtwRating, g.score, g.opponentScore,
+                                   g.rttfDelta, g.ttwDelta
+                            FROM Tournament t LEFT JOIN t.games g
+                            WHERE t.date IS NOT NULL
+                            ORDER BY t.player.id, t.date DESC, t.id""", Object[].class)
+                    .getResultList();
+        } catch (Exception e) {
+            throw new RuntimeException("Ошибка загрузки игр для модели", e);
+        }
+    }
+
+    /**
+     * Сумма дельт турниров игрока с даты {@code date} включительно: {rttf, ttw}.
+     * Рейтинг перед турниром — текущий минус эта сумма.
+     */
+    public BigDecimal[] sumDeltasSince(Long playerId, LocalDate date) {
+        try (Session session = sessionFactory.openSession()) {
+            // Дельты хранятся в сотых через конвертер, поэтому суммируются здесь, а не в SQL
+            List<Object[]> rows = session.createQuery("""
+                            SELECT t.rttfDelta, t.ttwDelta FROM Tournament t
+                            WHERE t.player.id = :playerId AND t.date >= :date""", Object[].class)
+                    .setParameter("playerId", playerId)
+                    .setParameter("date", date)
+                    .getResultList();
+            BigDecimal rttf = BigDecimal.ZERO;
+            BigDecimal ttw = BigDecimal.ZERO;
+            for (Object[] row : rows) {
+                if (row[0] != null) rttf = rttf.add((BigDecimal) row[0]);
+                if (row[1] != null) ttw = ttw.add((BigDecimal) row[1]);
+            }
+            return new BigDecimal[]{rttf, ttw};
+        } catch (Exception e) {
+            throw new RuntimeException("Ошибка загрузки дельт турниров игрока ID=" + playerId, e);
+        }
+    }
+}
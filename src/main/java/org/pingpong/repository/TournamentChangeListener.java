@@ -0,0 +1,57 @@
+package org.pingpong.repository;
+
+import org.pingpong.model.Tournament;
+
+/**
+ * Уведомления о турнирах, которые меняет синхронизация. Изменённый турнир сообщается парой:
+ * {@link #removed} до изменения и {@link #added} после. Вызовы идут внутри транзакции,
+ * поэтому слушатель должен копить изменения и применять их только после успешного завершения.
+ */
+public interface TournamentChangeListener {
+
+    TournamentChangeListener NONE = new TournamentChangeListener() {
+        @Override
+        public void removed(Tournament tournament) {
+        }
+
+        @Override
+        public void added(Tournament tournament) {
+        }
+
+        @Override
+        public void reset() {
+        }
+    };
+
+    void removed(Tournament tournament);
+
+    void added(Tournament tournament);
+
+    /**
+     * Турниры удалены массово, не по одному: поштучного списка изменений не будет.
+     */
+    void reset();
+
+    default TournamentChangeListener andThen(TournamentChangeListener next) {
+        TournamentChangeListener first = this;
+        return new TournamentChangeListener() {
+            @Override
+            public void removed(Tournament tournament) {
+                first.removed(tournament);
+                next.removed(tournament);
+            }
+
+            @Override
+            public void added(Tournament tournament) {
+                first.added(tournament);
+                next.added(tournament);
+            }
+
+            @Override
+            public void reset() {
+                first.reset();
+                next.reset();
+            }
+        };
+    }
+}
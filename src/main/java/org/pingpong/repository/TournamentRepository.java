@@ -7,11 +7,19 @@ import org.hibernate.SessionFactory;
 import org.hibernate.Transaction;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 @Repository
 public class TournamentRepository {
 
+    private static final int BULK_CHUNK = 500;
+
     private final SessionFactory sessionFactory = HibernateUtil.getSessionFactory();
 
     public List<Tournament> findByPlayerId(Long playerId) {
@@ -19,28 +27,151 @@ public class TournamentRepository {
             return session.createQuery(
                             "FROM Tournament t WHERE t.player.id = :playerId ORDER BY t.date DESC", Tournament.class)
                     .setParameter("playerId", playerId)
+                    .setCacheable(true)
+                    .setCacheRegion("tournamentsByPlayer")
                     .getResultList();
         } catch (Exception e) {
             throw new RuntimeException("Ошибка загрузки турниров игрока ID=" + playerId, e);
         }
     }
 
-    public void update(Tournament tournament) {
-        if (tournament == null || tournament.getId() == null) {
-            throw new IllegalArgumentException("Турнир или его ID не может быть null");
+    /**
+     * Страница турниров игрока с keyset-пагинацией: следующая страница продолжается от последней
+     * строки предыдущей, без OFFSET. Пустые значения ключа сортировки считаются наименьшими,
+     * id — второй ключ, чтобы порядок был однозначным.
+     */
+    public TournamentPage findPageByPlayerId(Long playerId, boolean medalsOnly, SortField sortField,
+                                             boolean ascending, PageCursor after, int limit) {
+        String key = "COALESCE(" + sortField.path + ", :nullKey)";
+        String direction = ascending ? "ASC" : "DESC";
+        String compare = ascending ? ">" : "<";
+
+        StringBuilder hql = new StringBuilder("FROM Tournament t WHERE t.player.id = :playerId");
+        if (medalsOnly) {
+            hql.append(" AND t.place BETWEEN 1 AND 3");
+        }
+        if (after != null) {
+            hql.append(" AND (").append(key).append(' ').append(compare).append(" :afterKey OR (")
+                    .append(key).append(" = :afterKey AND t.id ").append(compare).append(" :afterId))");
+        }
+        hql.append(" ORDER BY ").append(key).append(' ').append(direction).append(", t.id ").append(direction);
+
+        try (Session session = sessionFactory.openSession()) {
+            var query = session.createQuery(hql.toString(), Tournament.class)
+                    .setParameter("playerId", playerId)
+                    .setParameter("nullKey", sortField.nullKey)
+                    .setMaxResults(limit + 1)
+                    .setCacheable(true)
+                    .setCacheRegion("tournamentsByPlayer");
+            if (after != null) {
+                query.setParameter("afterKey", after.key())
+                        .setParameter("afterId", after.id());
+            }
+            List<Tournament> rows = query.getResultList();
+
+            // Лишняя строка только говорит, что дальше есть ещё
+            boolean hasMore = rows.size() > limit;
+            List<Tournament> items = hasMore ? new ArrayList<>(rows.subList(0, limit)) : rows;
+            PageCursor next = null;
+            if (hasMore) {
+                Tournament last = items.get(items.size() - 1);
+                Object lastKey = sortField.valueOf(last);
+                next = new PageCursor(lastKey != null ? lastKey : sortField.nullKey, last.getId());
+            }
+            return new TournamentPage(items, next);
+        } catch (Exception e) {
+            throw new RuntimeException("Ошибка загрузки страницы турниров игрока ID=" + playerId, e);
+        }
+    }
+
+    public long countByPlayerId(Long playerId, boolean medalsOnly) {
+        try (Session session = sessionFactory.openSession()) {
+            return session.createQuery(
+                            "SELECT COUNT(t) FROM Tournament t WHERE t.player.id = :playerId" +
+                                    (medalsOnly ? " AND t.place BETWEEN 1 AND 3" : ""), Long.class)
+                    .setParameter("playerId", playerId)
+                    .setCacheable(true)
+                    .setCacheRegion("tournamentsByPlayer")
+                    .getSingleResult();
+        } catch (Exception e) {
+            throw new RuntimeException("Ошибка подсчёта турниров игрока ID=" + playerId, e);
+        }
+    }
+
+    /**
+     * Строки (дата, rttfDelta, ttwDelta) турниров игрока с датой, по возрастанию даты — для истории рейтинга.
+     */
+    public List<Object[]> findRatingDeltas(Long playerId) {
+        try (Session session = sessionFactory.openSession()) {
+            return session.createQuery(
+                            "SELECT t.date, t.rttfDelta, t.ttwDelta FROM Tournament t " +
+                                    "WHERE t.player.id = :playerId AND t.date IS NOT NULL ORDER BY t.date", Object[].class)
+                    .setParameter("playerId", playerId)
+                    .getResultList();
+        } catch (Exception e) {
+            throw new RuntimeException("Ошибка загрузки дельт рейтинга игрока ID=" + playerId, e);
+        }
+    }
+
+    /**
+     * Турниры TTW без места — кандидаты на дозаполнение места с сайта.
+     */
+    public List<Tournament> findTtwWithoutPlace(Long playerId) {
+        try (Session session = sessionFactory.openSession()) {
+            return session.createQuery(
+                            "FROM Tournament t WHERE t.player.id = :playerId " +
+                                    "AND t.ttwName IS NOT NULL AND t.place IS NULL ORDER BY t.date DESC", Tournament.class)
+                    .setParameter("playerId", playerId)
+                    .getResultList();
+        } catch (Exception e) {
+            throw new RuntimeException("Ошибка загрузки турниров без места игрока ID=" + playerId, e);
+        }
+    }
+
+    /**
+     * Применяет накопленные правки одной транзакцией. Правки с одинаковыми значениями
+     * объединяются в один UPDATE ... WHERE id IN (...); null в правке — поле не меняется.
+     * Массовый UPDATE сам сбрасывает кэш турниров и зависящие от таблицы запросы.
+     */
+    public int applyEdits(Collection<TournamentEdit> edits) {
+        if (edits.isEmpty()) return 0;
+
+        Map<TournamentEdit, List<Long>> groups = new LinkedHashMap<>();
+        for (TournamentEdit edit : edits) {
+            groups.computeIfAbsent(new TournamentEdit(null, edit.date(), edit.place()), k -> new ArrayList<>())
+                    .add(edit.id());
         }
 
         try (Session session = sessionFactory.openSession()) {
             Transaction tx = session.beginTransaction();
             try {
-                session.merge(tournament);
+                int updated = 0;
+                for (Map.Entry<TournamentEdit, List<Long>> group : groups.entrySet()) {
+                    TournamentEdit values = group.getKey();
+                    List<String> assignments = new ArrayList<>();
+                    if (values.date() != null) assignments.add("t.date = :date");
+                    if (values.place() != null) assignments.add("t.place = :place");
+                    if (assignments.isEmpty()) continue;
+
+                    List<Long> ids = group.getValue();
+                    for (int from = 0; from < ids.size(); from += BULK_CHUNK) {
+                        var update = session.createMutationQuery(
+                                        "UPDATE Tournament t SET " + String.join(", ", assignments) +
+                                                " WHERE t.id IN :ids")
+                                .setParameterList("ids", ids.subList(from, Math.min(ids.size(), from + BULK_CHUNK)));
+                        if (values.date() != null) update.setParameter("date", values.date());
+                        if (values.place() != null) update.setParameter("place", values.place());
+                        updated += update.executeUpdate();
+                    }
+                }
                 tx.commit();
+                return updated;
             } catch (Exception e) {
                 tx.rollback();
                 throw e;
             }
         } catch (Exception e) {
-            throw new RuntimeException("Ошибка обновления турнира ID=" + tournament.getId(), e);
+            throw new RuntimeException("Ошибка пакетного обновления турниров (" + edits.size() + " шт.)", e);
         }
     }
 
@@ -63,4 +194,61 @@ public class TournamentRepository {
             throw new RuntimeException("Ошибка удаления турнира ID=" + tournament.getId(), e);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Поля, по которым таблица турниров сортируется на стороне БД.
+     */
+    public enum SortField {
+        DATE("t.date", LocalDate.of(1, 1, 1)),
+        RTTF_NAME("t.rttfName", ""),
+        RTTF_DELTA("t.rttfDelta", new BigDecimal("-1000000")),
+        TTW_NAME("t.ttwName", ""),
+        TTW_DELTA("t.ttwDelta", new BigDecimal("-1000000")),
+        PLACE("t.place", Integer.MIN_VALUE);
+
+        private final String path;
+        private final Object nullKey;
+
+        SortField(String path, Object nullKey) {
+            this.path = path;
+            this.nullKey = nullKey;
+        }
+
+        Object valueOf(Tournament tournament) {
+            return switch (this) {
+                case DATE -> tournament.getDate();
+                case RTTF_NAME -> tournament.getRttfName();
+                case RTTF_DELTA -> tournament.getRttfDelta();
+                case TTW_NAME -> tournament.getTtwName();
+                case TTW_DELTA -> tournament.getTtwDelta();
+                case PLACE -> tournament.getPlace();
+            };
+        }
+    }
+
+    /**
+     * Позиция после последней строки страницы: значение ключа сортировки и id.
+     */
+    public record PageCursor(Object key, Long id) {
+    }
+
+    /**
+     * Отложенная правка турнира: новые дата и/или место, null — поле не меняется.
+     */
+    public record TournamentEdit(Long id, LocalDate date, Integer place) {
+        /**
+         * Более поздняя правка того же турнира поверх этой.
+         */
+        public TournamentEdit then(TournamentEdit later) {
+            return new TournamentEdit(id,
+                    later.date() != null ? later.date() : date,
+                    later.place() != null ? later.place() : place);
+        }
+    }
+
+    /**
+     * Строки страницы и курсор следующей; next == null — страница последняя.
+     */
+    public record TournamentPage(List<Tournament> items, PageCursor next) {
+    }
+}
@@ -0,0 +1,112 @@
+package org.pingpong.repository;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.pingpong.config.HibernateUtil;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Составы турниров TTW, общие для всех игроков: место участника хранится по каноническому имени
+ * один раз на турнир, сколько бы отслеживаемых игроков в нём ни играло.
+ */
+@Repository
+public class TtwRosterRepository {
+
+    private final SessionFactory sessionFactory = HibernateUtil.getSessionFactory();
+
+    /**
+     * Сохранённый состав: каноническое имя → место и время, когда страница турнира была прочитана.
+     */
+    public record TtwRoster(Map<String, Integer> places, Instant fetchedOn) {
+    }
+
+    /**
+     * Состав турнира или null, если страница ещё не читалась.
+     */
+    public TtwRoster find(String ttwId) {
+        return withConnection(connection -> {
+            Instant fetchedOn;
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "SELECT fetchedOn FROM TTW_TOURNAMENTS WHERE ttwId = ?")) {
+                statement.setString(1, ttwId);
+                try (ResultSet rs = statement.executeQuery()) {
+                    if (!rs.next()) return null;
+                    fetchedOn = rs.getTimestamp(1).toInstant();
+                }
+            }
+
+            Map<String, Integer> places = new HashMap<>();
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "SELECT name, place FROM TTW_TOURNAMENT_PLACES WHERE ttwId = ?")) {
+                statement.setString(1, ttwId);
+                try (ResultSet rs = statement.executeQuery()) {
+                    while (rs.next()) {
+                        places.put(rs.getString(1), rs.getInt(2));
+                    }
+                }
+            }
+            return new TtwRoster(places, fetchedOn);
+        });
+    }
+
+    /**
+     * Заменяет состав турнира целиком одной транзакцией.
+     */
+    public void save(String ttwId, TtwRoster roster) {
+        withConnection(connection -> {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                try (PreparedStatement statement = connection.prepareStatement(
+                        "MERGE INTO TTW_TOURNAMENTS (ttwId, fetchedOn) KEY (ttwId) VALUES (?, ?)")) {
+                    statement.setString(1, ttwId);
+                    statement.setTimestamp(2, Timestamp.from(roster.fetchedOn()));
+                    statement.executeUpdate();
+                }
+                try (PreparedStatement statement = connection.prepareStatement(
+                        "DELETE FROM TTW_TOURNAMENT_PLACES WHERE ttwId = ?")) {
+                    statement.setString(1, ttwId);
+                    statement.executeUpdate();
+                }
+                try (PreparedStatement statement = connection.prepareStatement(
+                        "INSERT INTO TTW_TOURNAMENT_PLACES (ttwId, name, place) VALUES (?, ?, ?)")) {
+                    for (Map.Entry<String, Integer> entry : roster.places().entrySet()) {
+                        statement.setString(1, ttwId);
+                        statement.setString(2, entry.getKey());
+                        statement.setInt(3, entry.getValue());
+                        statement.addBatch();
+                    }
+                    statement.executeBatch();
+                }
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+            return null;
+        });
+    }
+
+    private interface ConnectionWork<T> {
+        T execute(Connection connection) throws SQLException;
+    }
+
+    private <T> T withConnection(ConnectionWork<T> work) {
+        try (Session session = sessionFactory.openSession()) {
+            return session.doReturningWork(work::execute);
+        } catch (Exception e) {
+            throw new RuntimeException("Ошибка доступа к составам турниров TTW", e);
+        }
+    }
+}
@@ -1,5 +1,14 @@
 package org.pingpong.service;
 
+import org.pingpong.model.Player;
+
 public interface MainAppRefresher {
     void refreshPlayers();
-}
\ No newline at end of file
+
+    /**
+     * Статистика игрока уже обновлена на месте: достаточно перерисовать таблицу.
+     */
+    default void refreshPlayer(Player player) {
+        refreshPlayers();
+    }
+}
@@ -7,95 +7,115 @@ import org.pingpong.model.Tournament;
 
 import java.time.LocalDate;
 import java.util.List;
-import java.util.Objects;
 
+/**
+ * Полный расчёт статистики по загруженному графу турниров и игр. Счётчики копятся в примитивных
+ * полях и переносятся в PlayerStats один раз; признаки RTTF/TTW определяются один раз на турнир.
+ */
 public class PlayerStatsService {
 
     public PlayerStats calculate(Player player) {
-        PlayerStats stats = new PlayerStats();
         List<Tournament> tournaments = player.getTournamentList();
-
         if (tournaments == null || tournaments.isEmpty()) {
-            return stats;
+            return new PlayerStats();
         }
 
-        LocalDate lastGameDate = null;
-
+        Accumulator acc = new Accumulator();
         for (Tournament tournament : tournaments) {
-            updateTournamentCount(stats, tournament);
-            lastGameDate = updateLastGameDate(lastGameDate, tournament.getDate());
-            updatePlaces(stats, tournament.getPlace());
-
-            boolean isRttf = isRttfTournament(tournament);
-            boolean isTtw = isTtwTournament(tournament);
-
-            for (Game game : tournament.getGames()) {
-                updateWinLossStats(stats, game, isRttf, isTtw);
-            }
-        }
-
-        stats.setLastGameDate(lastGameDate != null ? lastGameDate : LocalDate.MIN);
-        return stats;
-    }
-
-    private void updateTournamentCount(PlayerStats stats, Tournament tournament) {
-        stats.setTotalTours(stats.getTotalTours() + 1);
-        if (tournament.getRttfName() != null && !tournament.getRttfName().trim().isEmpty()) {
-            stats.setRttfTours(stats.getRttfTours() + 1);
-        }
-        if (tournament.getTtwName() != null && !tournament.getTtwName().trim().isEmpty()) {
-            stats.setTtwTours(stats.getTtwTours() + 1);
+            acc.addTournament(tournament);
         }
+        return acc.toStats();
     }
 
-    private LocalDate updateLastGameDate(LocalDate currentMax, LocalDate newDate) {
-        if (newDate == null) return currentMax;
-        return currentMax == null || newDate.isAfter(currentMax) ? newDate : currentMax;
-    }
-
-    private void updatePlaces(PlayerStats stats, Integer place) {
-        if (place == null) return;
-        switch (place) {
-            case 1 -> stats.setFirstPlaces(stats.getFirstPlaces() + 1);
-            case 2 -> stats.setSecondPlaces(stats.getSecondPlaces() + 1);
-            case 3 -> stats.setThirdPlaces(stats.getThirdPlaces() + 1);
+    /**
+     * То же, что {@code name != null && !name.trim().isEmpty()}, без создания строки.
+     */
+    static boolean hasName(String name) {
+        if (name == null) return false;
+        for (int i = 0, n = name.length(); i < n; i++) {
+            if (name.charAt(i) > ' ') return true;
         }
+        return false;
     }
 
-    private boolean isRttfTournament(Tournament tournament) {
-        return tournament.getRttfName() != null && !tournament.getRttfName().trim().isEmpty();
-    }
-
-    private boolean isTtwTournament(Tournament tournament) {
-        return tournament.getTtwName() != null && !tournament.getTtwName().trim().isEmpty();
-    }
-
-    private void updateWinLossStats(PlayerStats stats, Game game, boolean isRttf, boolean isTtw) {
-        Integer playerScore = game.getScore();
-        Integer opponentScore = game.getOpponentScore();
-
-        // Защита от null
-        if (playerScore == null || opponentScore == null) return;
-
-        boolean win = playerScore > opponentScore;
-        boolean loss = playerScore < opponentScore;
-
-        if (win) {
-            stats.setTotalWins(stats.getTotalWins() + 1);
-            if (isRttf && Objects.nonNull(game.getRttfDelta())) {
-                stats.setRttfWins(stats.getRttfWins() + 1);
+    private static final class Accumulator {
+        int totalTours;
+        int rttfTours;
+        int ttwTours;
+        int firstPlaces;
+        int secondPlaces;
+        int thirdPlaces;
+        int totalWins;
+        int totalLosses;
+        int rttfWins;
+        int rttfLosses;
+        int ttwWins;
+        int ttwLosses;
+        LocalDate lastGameDate;
+
+        void addTournament(Tournament tournament) {
+            boolean rttf = hasName(tournament.getRttfName());
+            boolean ttw = hasName(tournament.getTtwName());
+
+            totalTours++;
+            if (rttf) rttfTours++;
+            if (ttw) ttwTours++;
+
+            LocalDate date = tournament.getDate();
+            if (date != null && (lastGameDate == null || date.isAfter(lastGameDate))) {
+                lastGameDate = date;
             }
-            if (isTtw && Objects.nonNull(game.getTtwDelta())) {
-                stats.setTtwWins(stats.getTtwWins() + 1);
+
+            Integer place = tournament.getPlace();
+            if (place != null) {
+                switch (place) {
+                    case 1 -> firstPlaces++;
+                    case 2 -> secondPlaces++;
+                    case 3 -> thirdPlaces++;
+                }
             }
-        } else if (loss) {
-            stats.setTotalLosses(stats.getTotalLosses() + 1);
-            if (isRttf && Objects.nonNull(game.getRttfDelta())) {
-                stats.setRttfLosses(stats.getRttfLosses() + 1);
+
+            List<Game> games = tournament.getGames();
+            if (games == null) return;
+            for (int i = 0, n = games.size(); i < n; i++) {
+                addGame(games.get(i), rttf, ttw);
             }
-            if (isTtw && Objects.nonNull(game.getTtwDelta())) {
-                stats.setTtwLosses(stats.getTtwLosses() + 1);
+        }
+
+        private void addGame(Game game, boolean rttf, boolean ttw) {
+            Integer score = game.getScore();
+            Integer opponentScore = game.getOpponentScore();
+            // Защита от null
+            if (score == null || opponentScore == null) return;
+
+            int diff = Integer.compare(score, opponentScore);
+            if (diff > 0) {
+                totalWins++;
+                if (rttf && game.getRttfDelta() != null) rttfWins++;
+                if (ttw && game.getTtwDelta() != null) ttwWins++;
+            } else if (diff < 0) {
+                totalLosses++;
+                if (rttf && game.getRttfDelta() != null) rttfLosses++;
+                if (ttw && game.getTtwDelta() != null) ttwLosses++;
             }
         }
+
+        PlayerStats toStats() {
+            PlayerStats stats = new PlayerStats();
+            stats.setTotalTours(totalTours);
+            stats.setRttfTours(rttfTours);
+            stats.setTtwTours(ttwTours);
+            stats.setFirstPlaces(firstPlaces);
+            stats.setSecondPlaces(secondPlaces);
+            stats.setThirdPlaces(thirdPlaces);
+            stats.setTotalWins(totalWins);
+            stats.setTotalLosses(totalLosses);
+            stats.setRttfWins(rttfWins);
+            stats.setRttfLosses(rttfLosses);
+            stats.setTtwWins(ttwWins);
+            stats.setTtwLosses(ttwLosses);
+            stats.setLastGameDate(lastGameDate != null ? lastGameDate : LocalDate.MIN);
+            return stats;
+        }
     }
-}
\ No newline at end of file
+}
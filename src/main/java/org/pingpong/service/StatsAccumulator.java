@@ -0,0 +1,110 @@
+package org.pingpong.service;
+
+import org.pingpong.model.Game;
+import org.pingpong.model.PlayerStats;
+import org.pingpong.model.Tournament;
+
+/**
+ * Добавляет в PlayerStats или вычитает из неё вклад одного турнира или одной игры
+ * по тем же правилам, что и полный расчёт в {@link PlayerStatsService}.
+ * Дата последнего турнира — максимум, её вычитанием не восстановить: после reverse
+ * её берут из БД.
+ */
+public class StatsAccumulator {
+
+    private final PlayerStats stats;
+
+    public StatsAccumulator(PlayerStats stats) {
+        this.stats = stats;
+    }
+
+    public PlayerStats getStats() {
+        return stats;
+    }
+
+    public void apply(Tournament tournament) {
+        addTournament(tournament, 1);
+        if (tournament.getDate() != null && (stats.getLastGameDate() == null
+                || tournament.getDate().isAfter(stats.getLastGameDate()))) {
+            stats.setLastGameDate(tournament.getDate());
+        }
+    }
+
+    public void reverse(Tournament tournament) {
+        addTournament(tournament, -1);
+    }
+
+    public void applyGame(Tournament tournament, Game game) {
+        addGame(game, isRttf(tournament), isTtw(tournament), 1);
+    }
+
+    public void reverseGame(Tournament tournament, Game game) {
+        addGame(game, isRttf(tournament), isTtw(tournament), -1);
+    }
+
+    /**
+     * Прибавляет накопленную разницу (счётчики другой статистики); дату не трогает.
+     */
+    public void add(PlayerStats delta) {
+        stats.setTotalTours(stats.getTotalTours() + delta.getTotalTours());
+        stats.setRttfTours(stats.getRttfTours() + delta.getRttfTours());
+        stats.setTtwTours(stats.getTtwTours() + delta.getTtwTours());
+        stats.setFirstPlaces(stats.getFirstPlaces() + delta.getFirstPlaces());
+        stats.setSecondPlaces(stats.getSecondPlaces() + delta.getSecondPlaces());
+        stats.setThirdPlaces(stats.getThirdPlaces() + delta.getThirdPlaces());
+        stats.setTotalWins(stats.getTotalWins() + delta.getTotalWins());
+        stats.setTotalLosses(stats.getTotalLosses() + delta.getTotalLosses());
+        stats.setRttfWins(stats.getRttfWins() + delta.getRttfWins());
+        stats.setRttfLosses(stats.getRttfLosses() + delta.getRttfLosses());
+        stats.setTtwWins(stats.getTtwWins() + delta.getTtwWins());
+        stats.setTtwLosses(stats.getTtwLosses() + delta.getTtwLosses());
+    }
+
+    private void addTournament(Tournament tournament, int sign) {
+        boolean rttf = isRttf(tournament);
+        boolean ttw = isTtw(tournament);
+
+        stats.setTotalTours(stats.getTotalTours() + sign);
+        if (rttf) stats.setRttfTours(stats.getRttfTours() + sign);
+        if (ttw) stats.setTtwTours(stats.getTtwTours() + sign);
+
+        Integer place = tournament.getPlace();
+        if (place != null) {
+            switch (place) {
+                case 1 -> stats.setFirstPlaces(stats.getFirstPlaces() + sign);
+                case 2 -> stats.setSecondPlaces(stats.getSecondPlaces() + sign);
+                case 3 -> stats.setThirdPlaces(stats.getThirdPlaces() + sign);
+            }
+        }
+
+        if (tournament.getGames() != null) {
+            for (Game game : tournament.getGames()) {
+                addGame(game, rttf, ttw, sign);
+            }
+        }
+    }
+
+    private void addGame(Game game, boolean rttf, boolean ttw, int sign) {
+        Integer score = game.getScore();
+        Integer opponentScore = game.getOpponentScore();
+        if (score == null || opponentScore == null) return;
+
+        if (score > opponentScore) {
+            stats.setTotalWins(stats.getTotalWins() + sign);
+            if (rttf && game.getRttfDelta() != null) stats.setRttfWins(stats.getRttfWins() + sign);
+            if (ttw && game.getTtwDelta() != null) stats.setTtwWins(stats.getTtwWins() + sign);
+        } else if (score < opponentScore) {
+            stats.setTotalLosses(stats.getTotalLosses() + sign);
+            if (rttf && game.getRttfDelta() != null) stats.setRttfLosses(stats.getRttfLosses() + sign);
+            if (ttw && game.getTtwDelta() != null) stats.setTtwLosses(stats.getTtwLosses() + sign);
+        }
+    }
+
+    private static boolean isRttf(Tournament tournament) {
+        return PlayerStatsService.hasName(tournament.getRttfName());
+    }
+
+    private static boolean isTtw(Tournament tournament) {
+        return PlayerStatsService.hasName(tournament.getTtwName());
+    }
+}
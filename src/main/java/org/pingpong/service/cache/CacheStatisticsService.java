@@ -0,0 +1,58 @@
+package org.pingpong.service.cache;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.pingpong.config.HibernateUtil;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Статистика попаданий в кэш второго уровня и кэш запросов Hibernate.
+ */
+@Service
+public class CacheStatisticsService {
+
+    private static final List<String> REGIONS = List.of(
+            "org.pingpong.model.Tournament",
+            "org.pingpong.model.Tournament.games",
+            "org.pingpong.model.Game",
+            "tournamentsByPlayer",
+            "gamesByTournament"
+    );
+
+    private final SessionFactory sessionFactory = HibernateUtil.getSessionFactory();
+
+    /**
+     * Доля попаданий в регион (0..1), либо 0, если обращений ещё не было.
+     */
+    public double getHitRatio(String region) {
+        CacheRegionStatistics stats = getStatistics().getCacheRegionStatistics(region);
+        if (stats == null) return 0.0;
+        long total = stats.getHitCount() + stats.getMissCount();
+        return total > 0 ? (double) stats.getHitCount() / total : 0.0;
+    }
+
+    public String getSummary() {
+        StringBuilder sb = new StringBuilder();
+        for (String region : REGIONS) {
+            CacheRegionStatistics stats = getStatistics().getCacheRegionStatistics(region);
+            if (stats == null) continue;
+            sb.append(String.format("%s: попаданий %d, промахов %d, записей %d (%.1f%%)%n",
+                    region,
+                    stats.getHitCount(),
+                    stats.getMissCount(),
+                    stats.getPutCount(),
+                    getHitRatio(region) * 100));
+        }
+        Statistics total = getStatistics();
+        sb.append(String.format("Запросы: попаданий %d, промахов %d",
+                total.getQueryCacheHitCount(), total.getQueryCacheMissCount()));
+        return sb.toString();
+    }
+
+    private Statistics getStatistics() {
+        return sessionFactory.getStatistics();
+    }
+}
@@ -0,0 +1,93 @@
+package org.pingpong.service.filter;
+
+import org.pingpong.model.Player;
+import org.pingpong.model.PlayerStats;
+import org.pingpong.service.window.WindowStatsService.WindowStats;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Числовые показатели игрока, доступные в выражениях фильтра. Значение NaN означает
+ * «нет данных» (нет рейтинга, ни одной игры для процента, ни одного турнира для даты):
+ * такое значение не проходит ни одно сравнение.
+ */
+public enum PlayerField {
+    ID("id", (p, s, w) -> p.getId() != null ? p.getId() : Double.NaN),
+    RTTF("rttf", (p, s, w) -> positive(p.getRttfRating())),
+    TTW("ttw", (p, s, w) -> positive(p.getTtwRating())),
+    RTTF_DELTA("drttf", (p, s, w) -> w != null ? w.rttfDeltaCents() / 100.0 : 0),
+    TTW_DELTA("dttw", (p, s, w) -> w != null ? w.ttwDeltaCents() / 100.0 : 0),
+    GOLD("gold", (p, s, w) -> s.getFirstPlaces()),
+    SILVER("silver", (p, s, w) -> s.getSecondPlaces()),
+    BRONZE("bronze", (p, s, w) -> s.getThirdPlaces()),
+    MEDALS("medals", (p, s, w) -> s.getFirstPlaces() + s.getSecondPlaces() + s.getThirdPlaces()),
+    TOURS("tours", (p, s, w) -> s.getTotalTours()),
+    RTTF_TOURS("rttf_tours", (p, s, w) -> s.getRttfTours()),
+    TTW_TOURS("ttw_tours", (p, s, w) -> s.getTtwTours()),
+    GAMES("games", (p, s, w) -> s.getTotalGames()),
+    WINS("wins", (p, s, w) -> s.getTotalWins()),
+    LOSSES("losses", (p, s, w) -> s.getTotalLosses()),
+    RATE("rate", (p, s, w) -> rate(s.getTotalWins(), s.getTotalLosses())),
+    RTTF_GAMES("rttf_games", (p, s, w) -> s.getRttfWins() + s.getRttfLosses()),
+    RTTF_WINS("rttf_wins", (p, s, w) -> s.getRttfWins()),
+    RTTF_LOSSES("rttf_losses", (p, s, w) -> s.getRttfLosses()),
+    RTTF_RATE("rttf_rate", (p, s, w) -> rate(s.getRttfWins(), s.getRttfLosses())),
+    TTW_GAMES("ttw_games", (p, s, w) -> s.getTtwWins() + s.getTtwLosses()),
+    TTW_WINS("ttw_wins", (p, s, w) -> s.getTtwWins()),
+    TTW_LOSSES("ttw_losses", (p, s, w) -> s.getTtwLosses()),
+    TTW_RATE("ttw_rate", (p, s, w) -> rate(s.getTtwWins(), s.getTtwLosses())),
+    // День эпохи: сравнивается с датами из выражения
+    LAST("last", (p, s, w) -> day(s.getLastGameDate()));
+
+    private static final Map<String, PlayerField> BY_NAME = Arrays.stream(values())
+            .collect(Collectors.toUnmodifiableMap(field -> field.name, Function.identity()));
+
+    interface Extractor {
+        double value(Player player, PlayerStats stats, WindowStats windowStats);
+    }
+
+    private final String name;
+    private final Extractor extractor;
+
+    PlayerField(String name, Extractor extractor) {
+        this.name = name;
+        this.extractor = extractor;
+    }
+
+    /**
+     * Поле по имени из выражения, без учёта регистра; null, если такого нет.
+     */
+    public static PlayerField byName(String name) {
+        return BY_NAME.get(name.toLowerCase());
+    }
+
+    public boolean isDate() {
+        return this == LAST;
+    }
+
+    double value(Player player, PlayerStats stats, WindowStats windowStats) {
+        return extractor.value(player, stats, windowStats);
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+    private static double positive(Integer rating) {
+        return rating != null && rating > 0 ? rating : Double.NaN;
+    }
+
+    private static double rate(int wins, int losses) {
+        int games = wins + losses;
+        return games > 0 ? wins * 100.0 / games : Double.NaN;
+    }
+
+    private static double day(LocalDate date) {
+        return date != null && !LocalDate.MIN.equals(date) ? date.toEpochDay() : Double.NaN;
+    }
+}
@@ -0,0 +1,443 @@
+package org.pingpong.service.filter;
+
+import org.pingpong.model.Player;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Выражение фильтра и сортировки для таблицы игроков, например
+ * {@code ttw_rate > 60 and last >= 2025-06-01 sort ttw desc}.
+ * <ul>
+ *     <li>сравнения {@code поле > < >= <= = != значение}, значение — число (знак % допускается)
+ *     или дата {@code 2025-06-01} / {@code 01.06.2025} для поля {@code last};</li>
+ *     <li>{@code and}, {@code or}, {@code not}, скобки; условия подряд без связки — это {@code and};</li>
+ *     <li>слово, не являющееся полем, или строка в кавычках — часть ФИО;</li>
+ *     <li>в конце {@code sort поле [asc|desc], ...}.</li>
+ * </ul>
+ * Разбор не зависит от данных: выражение разбирается один раз и выполняется над любым
+ * снимком {@link PlayerTable}.
+ */
+public final class PlayerQuery {
+
+    public static final PlayerQuery ALL = new PlayerQuery(null, List.of());
+
+    private static final DateTimeFormatter RU_DATE = DateTimeFormatter.ofPattern("d.M.uuuu");
+
+    private final Node filter;
+    private final List<Order> order;
+
+    private PlayerQuery(Node filter, List<Order> order) {
+        this.filter = filter;
+        this.order = order;
+    }
+
+    /**
+     * Разбирает выражение; пустая строка — все игроки без своей сортировки.
+     *
+     * @throws IllegalArgumentException с описанием ошибки и позицией
+     */
+    public static PlayerQuery parse(String text) {
+        if (text == null || text.isBlank()) return ALL;
+        return new Parser(text).parse();
+    }
+
+    public boolean hasOrder() {
+        return !order.isEmpty();
+    }
+
+    /**
+     * Выполняет выражение над снимком: какие строки проходят фильтр и в каком порядке их показывать.
+     */
+    public Selection run(PlayerTable table) {
+        int size = table.size();
+        boolean[] matches = new boolean[size];
+        int count = 0;
+        if (filter == null) {
+            Arrays.fill(matches, true);
+            count = size;
+        } else {
+            RowPredicate predicate = filter.bind(table);
+            for (int row = 0; row < size; row++) {
+                if (predicate.test(row)) {
+                    matches[row] = true;
+                    count++;
+                }
+            }
+        }
+
+        int[] rank = null;
+        if (hasOrder()) {
+            Comparator<Integer> comparator = null;
+            for (Order key : order) {
+                Comparator<Integer> next = key.comparator(table.column(key.field()));
+                comparator = comparator == null ? next : comparator.thenComparing(next);
+            }
+            Integer[] rows = new Integer[size];
+            for (int row = 0; row < size; row++) rows[row] = row;
+            Arrays.sort(rows, comparator.thenComparingInt(row -> row));
+            rank = new int[size];
+            for (int position = 0; position < size; position++) rank[rows[position]] = position;
+        }
+        return new Selection(table, matches, count, rank);
+    }
+
+    /**
+     * Результат выполнения над одним снимком.
+     */
+    public static final class Selection {
+        private final PlayerTable table;
+        private final boolean[] matches;
+        private final int count;
+        private final int[] rank;
+
+        private Selection(PlayerTable table, boolean[] matches, int count, int[] rank) {
+            this.table = table;
+            this.matches = matches;
+            this.count = count;
+            this.rank = rank;
+        }
+
+        /**
+         * Игрок проходит фильтр. Игроков, которых нет в снимке, фильтр не скрывает.
+         */
+        public boolean contains(Player player) {
+            int row = table.row(player);
+            return row < 0 || matches[row];
+        }
+
+        public int count() {
+            return count;
+        }
+
+        public int total() {
+            return table.size();
+        }
+
+        /**
+         * Порядок из {@code sort} или null, если выражение порядок не задаёт.
+         */
+        public Comparator<Player> order() {
+            if (rank == null) return null;
+            return Comparator.comparingInt(player -> {
+                int row = table.row(player);
+                return row >= 0 ? rank[row] : Integer.MAX_VALUE;
+            });
+        }
+    }
+
+    @FunctionalInterface
+    private interface RowPredicate {
+        boolean test(int row);
+    }
+
+    private interface Node {
+        RowPredicate bind(PlayerTable table);
+    }
+
+    private enum Op {
+        LT, LE, GT, GE, EQ, NE;
+
+        boolean test(double value, double operand) {
+            // NaN — нет данных: не проходит ни одно сравнение, включая !=
+            if (Double.isNaN(value)) return false;
+            return switch (this) {
+                case LT -> value < operand;
+                case LE -> value <= operand;
+                case GT -> value > operand;
+                case GE -> value >= operand;
+                case EQ -> value == operand;
+                case NE -> value != operand;
+            };
+        }
+    }
+
+    private record Compare(PlayerField field, Op op, double operand) implements Node {
+        @Override
+        public RowPredicate bind(PlayerTable table) {
+            double[] column = table.column(field);
+            return row -> op.test(column[row], operand);
+        }
+    }
+
+    private record NameContains(String part) implements Node {
+        @Override
+        public RowPredicate bind(PlayerTable table) {
+            String[] names = table.names();
+            return row -> names[row].contains(part);
+        }
+    }
+
+    private record And(Node left, Node right) implements Node {
+        @Override
+        public RowPredicate bind(PlayerTable table) {
+            RowPredicate l = left.bind(table);
+            RowPredicate r = right.bind(table);
+            return row -> l.test(row) && r.test(row);
+        }
+    }
+
+    private record Or(Node left, Node right) implements Node {
+        @Override
+        public RowPredicate bind(PlayerTable table) {
+            RowPredicate l = left.bind(table);
+            RowPredicate r = right.bind(table);
+            return row -> l.test(row) || r.test(row);
+        }
+    }
+
+    private record Not(Node node) implements Node {
+        @Override
+        public RowPredicate bind(PlayerTable table) {
+            RowPredicate inner = node.bind(table);
+            return row -> !inner.test(row);
+        }
+    }
+
+    private record Order(PlayerField field, boolean descending) {
+        // Строки без значения всегда в конце, в каком бы направлении ни сортировали
+        Comparator<Integer> comparator(double[] column) {
+            return (a, b) -> {
+                double x = column[a];
+                double y = column[b];
+                boolean xMissing = Double.isNaN(x);
+                boolean yMissing = Double.isNaN(y);
+                if (xMissing || yMissing) return Boolean.compare(xMissing, yMissing);
+                return descending ? Double.compare(y, x) : Double.compare(x, y);
+            };
+        }
+    }
+
+    private enum Kind {WORD, STRING, NUMBER, DATE, OP, LPAREN, RPAREN, COMMA, END}
+
+    private record Token(Kind kind, String text, int position) {
+        boolean isKeyword(String keyword) {
+            return kind == Kind.WORD && text.equalsIgnoreCase(keyword);
+        }
+
+        boolean isOp(String... ops) {
+            return kind == Kind.OP && Arrays.asList(ops).contains(text);
+        }
+    }
+
+    /**
+     * Рекурсивный спуск: or → and → not → условие.
+     */
+    private static final class Parser {
+        private final List<Token> tokens;
+        private int next;
+
+        Parser(String text) {
+            this.tokens = tokenize(text);
+        }
+
+        PlayerQuery parse() {
+            Node filter = peek().kind() == Kind.END || peek().isKeyword("sort") ? null : or();
+            List<Order> order = new ArrayList<>();
+            if (peek().isKeyword("sort")) {
+                next++;
+                do {
+                    PlayerField field = field(take());
+                    boolean descending = false;
+                    if (peek().isKeyword("desc")) {
+                        descending = true;
+                        next++;
+                    } else if (peek().isKeyword("asc")) {
+                        next++;
+                    }
+                    order.add(new Order(field, descending));
+                } while (accept(Kind.COMMA));
+            }
+            if (peek().kind() != Kind.END) {
+                throw error(peek(), "Лишнее «" + peek().text() + "»");
+            }
+            return new PlayerQuery(filter, List.copyOf(order));
+        }
+
+        private Node or() {
+            Node node = and();
+            while (peek().isKeyword("or") || peek().isOp("||")) {
+                next++;
+                node = new Or(node, and());
+            }
+            return node;
+        }
+
+        private Node and() {
+            Node node = unary();
+            while (true) {
+                if (peek().isKeyword("and") || peek().isOp("&&")) {
+                    next++;
+                } else if (!startsTerm(peek())) {
+                    return node;
+                }
+                node = new And(node, unary());
+            }
+        }
+
+        private Node unary() {
+            Token token = peek();
+            if (token.isKeyword("not") || token.isOp("!")) {
+                next++;
+                return new Not(unary());
+            }
+            if (accept(Kind.LPAREN)) {
+                Node node = or();
+                if (!accept(Kind.RPAREN)) throw error(peek(), "Ожидалась «)»");
+                return node;
+            }
+            return condition();
+        }
+
+        private Node condition() {
+            Token token = take();
+            if (token.kind() == Kind.STRING) {
+                return new NameContains(token.text().toLowerCase(Locale.ROOT));
+            }
+            if (token.kind() != Kind.WORD) {
+                throw error(token, token.kind() == Kind.END ? "Выражение не закончено" : "Неожиданное «" + token.text() + "»");
+            }
+            PlayerField field = PlayerField.byName(token.text());
+            if (field == null) {
+                return new NameContains(token.text().toLowerCase(Locale.ROOT));
+            }
+
+            Token op = take();
+            if (op.kind() != Kind.OP || op.isOp("&&", "||", "!")) {
+                throw error(op, "После поля " + field + " ожидалось сравнение");
+            }
+            return new Compare(field, op(op), operand(field, take()));
+        }
+
+        private double operand(PlayerField field, Token value) {
+            if (field.isDate()) {
+                if (value.kind() != Kind.DATE) throw error(value, "Для поля " + field + " нужна дата");
+                return date(value);
+            }
+            if (value.kind() != Kind.NUMBER) throw error(value, "Для поля " + field + " нужно число");
+            try {
+                return Double.parseDouble(value.text());
+            } catch (NumberFormatException e) {
+                throw error(value, "Неверное число «" + value.text() + "»");
+            }
+        }
+
+        private double date(Token value) {
+            try {
+                LocalDate date = value.text().contains(".")
+                        ? LocalDate.parse(value.text(), RU_DATE)
+                        : LocalDate.parse(value.text());
+                return date.toEpochDay();
+            } catch (DateTimeParseException e) {
+                throw error(value, "Неверная дата «" + value.text() + "»");
+            }
+        }
+
+        private PlayerField field(Token token) {
+            PlayerField field = token.kind() == Kind.WORD ? PlayerField.byName(token.text()) : null;
+            if (field == null) throw error(token, "Неизвестное поле «" + token.text() + "»");
+            return field;
+        }
+
+        private static Op op(Token token) {
+            return switch (token.text()) {
+                case "<" -> Op.LT;
+                case "<=" -> Op.LE;
+                case ">" -> Op.GT;
+                case ">=" -> Op.GE;
+                case "=", "==" -> Op.EQ;
+                case "!=", "<>" -> Op.NE;
+                default -> throw error(token, "Неизвестная операция «" + token.text() + "»");
+            };
+        }
+
+        private static boolean startsTerm(Token token) {
+            return switch (token.kind()) {
+                case WORD -> !token.isKeyword("or") && !token.isKeyword("sort");
+                case STRING, LPAREN -> true;
+                case OP -> token.isOp("!");
+                default -> false;
+            };
+        }
+
+        private Token peek() {
+            return tokens.get(next);
+        }
+
+        private Token take() {
+            Token token = tokens.get(next);
+            if (token.kind() != Kind.END) next++;
+            return token;
+        }
+
+        private boolean accept(Kind kind) {
+            if (peek().kind() != kind) return false;
+            next++;
+            return true;
+        }
+
+        private static IllegalArgumentException error(Token token, String message) {
+            return new IllegalArgumentException(message + " (позиция " + (token.position() + 1) + ")");
+        }
+
+        private static List<Token> tokenize(String text) {
+            List<Token> tokens = new ArrayList<>();
+            int i = 0;
+            while (i < text.length()) {
+                char c = text.charAt(i);
+                int start = i;
+                if (Character.isWhitespace(c)) {
+                    i++;
+                } else if (c == '(' || c == ')' || c == ',') {
+                    tokens.add(new Token(c == '(' ? Kind.LPAREN : c == ')' ? Kind.RPAREN : Kind.COMMA,
+                            String.valueOf(c), start));
+                    i++;
+                } else if (c == '\'' || c == '"') {
+                    int end = text.indexOf(c, i + 1);
+                    if (end < 0) {
+                        throw new IllegalArgumentException("Незакрытая кавычка (позиция " + (start + 1) + ")");
+                    }
+                    tokens.add(new Token(Kind.STRING, text.substring(i + 1, end), start));
+                    i = end + 1;
+                } else if (Character.isDigit(c)
+                        || (c == '-' && i + 1 < text.length() && Character.isDigit(text.charAt(i + 1)))) {
+                    i++;
+                    while (i < text.length() && (Character.isDigit(text.charAt(i))
+                            || text.charAt(i) == '.' || text.charAt(i) == '-')) {
+                        i++;
+                    }
+                    String value = text.substring(start, i);
+                    // Знак процента только для читаемости: rate > 60%
+                    if (i < text.length() && text.charAt(i) == '%') i++;
+                    boolean date = value.matches("\\d{4}-\\d{1,2}-\\d{1,2}") || value.matches("\\d{1,2}\\.\\d{1,2}\\.\\d{4}");
+                    tokens.add(new Token(date ? Kind.DATE : Kind.NUMBER, value, start));
+                } else if (Character.isLetter(c) || c == '_') {
+                    while (i < text.length() && (Character.isLetterOrDigit(text.charAt(i))
+                            || text.charAt(i) == '_' || text.charAt(i) == '.')) {
+                        i++;
+                    }
+                    tokens.add(new Token(Kind.WORD, text.substring(start, i), start));
+                } else {
+                    String two = i + 1 < text.length() ? text.substring(i, i + 2) : "";
+                    if (List.of(">=", "<=", "!=", "<>", "==", "&&", "||").contains(two)) {
+                        tokens.add(new Token(Kind.OP, two, start));
+                        i += 2;
+                    } else if ("<>=!".indexOf(c) >= 0) {
+                        tokens.add(new Token(Kind.OP, String.valueOf(c), start));
+                        i++;
+                    } else {
+                        throw new IllegalArgumentException("Неожиданный символ «" + c + "» (позиция " + (start + 1) + ")");
+                    }
+                }
+            }
+            tokens.add(new Token(Kind.END, "", text.length()));
+            return tokens;
+        }
+    }
+}
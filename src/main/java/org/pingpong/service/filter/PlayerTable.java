@@ -0,0 +1,78 @@
+package org.pingpong.service.filter;
+
+import org.pingpong.model.Player;
+import org.pingpong.model.PlayerStats;
+import org.pingpong.service.window.WindowStatsService.WindowStats;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Снимок показателей игроков по столбцам: на каждое поле {@link PlayerField} — массив double
+ * по строкам, плюс имена в нижнем регистре. Фильтр проходит по массивам, не вызывая геттеров
+ * и не разбирая статистику каждого игрока заново при каждом нажатии клавиши.
+ */
+public final class PlayerTable {
+
+    private final List<Player> players;
+    private final Map<Long, Integer> rowsById;
+    private final double[][] columns;
+    private final String[] names;
+
+    private PlayerTable(List<Player> players, Map<Long, Integer> rowsById, double[][] columns, String[] names) {
+        this.players = players;
+        this.rowsById = rowsById;
+        this.columns = columns;
+        this.names = names;
+    }
+
+    /**
+     * Снимок по статистике за выбранный период; игроки без неё берутся со статистикой за всё время.
+     */
+    public static PlayerTable of(List<Player> players, Map<Long, WindowStats> windowStats) {
+        int size = players.size();
+        PlayerField[] fields = PlayerField.values();
+        double[][] columns = new double[fields.length][size];
+        String[] names = new String[size];
+        Map<Long, Integer> rowsById = new HashMap<>(size * 2);
+
+        for (int row = 0; row < size; row++) {
+            Player player = players.get(row);
+            WindowStats window = windowStats.get(player.getId());
+            PlayerStats stats = window != null ? window.stats()
+                    : player.hasStats() ? player.getStats() : new PlayerStats();
+            for (PlayerField field : fields) {
+                columns[field.ordinal()][row] = field.value(player, stats, window);
+            }
+            names[row] = player.getFio() != null ? player.getFio().toLowerCase(Locale.ROOT) : "";
+            if (player.getId() != null) rowsById.put(player.getId(), row);
+        }
+        return new PlayerTable(List.copyOf(players), rowsById, columns, names);
+    }
+
+    public int size() {
+        return players.size();
+    }
+
+    public Player player(int row) {
+        return players.get(row);
+    }
+
+    /**
+     * Строка игрока или -1, если его нет в снимке.
+     */
+    public int row(Player player) {
+        Integer row = player.getId() != null ? rowsById.get(player.getId()) : null;
+        return row != null && players.get(row) == player ? row : -1;
+    }
+
+    double[] column(PlayerField field) {
+        return columns[field.ordinal()];
+    }
+
+    String[] names() {
+        return names;
+    }
+}
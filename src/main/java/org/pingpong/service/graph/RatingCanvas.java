@@ -0,0 +1,524 @@
+package org.pingpong.service.graph;
+
+import javafx.geometry.VPos;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.input.MouseButton;
+import javafx.scene.layout.Region;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import javafx.scene.text.FontWeight;
+import javafx.scene.text.Text;
+import javafx.scene.text.TextAlignment;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * График рейтингов на Canvas. Ряды хранятся примитивными массивами (epoch day, рейтинг в сотых),
+ * ось X — настоящее время. Рисуется только видимое окно, прореженное до ширины графика в пикселях,
+ * поэтому кадр не зависит от длины истории.
+ * <p>
+ * Колесо меняет масштаб рейтинга, Ctrl+колесо — масштаб дат, перетаскивание двигает обе оси,
+ * двойной щелчок возвращает исходный вид. Подсказка показывает ближайшую к курсору точку.
+ */
+public class RatingCanvas extends Region {
+
+    // Поля под подписи осей, заголовок и легенду
+    private static final double LEFT = 60;
+    private static final double RIGHT = 20;
+    private static final double TOP = 36;
+    private static final double BOTTOM = 30;
+    private static final double HIT_RADIUS = 12;
+    // Точки рисуются, только когда между ними не меньше этого числа пикселей
+    private static final double SYMBOL_SPACING = 8;
+    private static final double MIN_DAY_SPAN = 7;
+    private static final double MAX_DAY_SPAN = 40 * 365;
+    private static final double MIN_CENTS_SPAN = 10 * 100;
+    private static final double MAX_CENTS_SPAN = 10_000 * 100;
+    private static final int START_DAY = (int) RatingSeries.START_DATE.toEpochDay();
+
+    private static final int[] DAY_STEPS = {1, 2, 7, 14};
+    private static final int[] MONTH_STEPS = {1, 2, 3, 6, 12, 24, 60, 120};
+    private static final DateTimeFormatter DAY_FORMAT = DateTimeFormatter.ofPattern("dd.MM.yy");
+    private static final DateTimeFormatter MONTH_FORMAT = DateTimeFormatter.ofPattern("MM.yyyy");
+    private static final DateTimeFormatter YEAR_FORMAT = DateTimeFormatter.ofPattern("yyyy");
+
+    private static final Font FONT = Font.font(11);
+    private static final Font TITLE_FONT = Font.font(null, FontWeight.BOLD, 14);
+    private static final Color GRID = Color.web("#e6e6e6");
+    private static final Color AXIS = Color.web("#888888");
+
+    private final Canvas canvas = new Canvas();
+    private final List<Series> series = new ArrayList<>();
+    private String title = "";
+    private boolean legendVisible = true;
+
+    // Видимая область: дни и рейтинг в сотых
+    private double minDay;
+    private double maxDay;
+    private double minCents;
+    private double maxCents;
+    private double lastMouseX;
+    private double lastMouseY;
+    private Hit hover;
+
+    private record Series(String name, Color color, int[] days, int[] cents) {
+    }
+
+    private record Hit(Series series, int index, double x, double y) {
+    }
+
+    public RatingCanvas() {
+        getChildren().add(canvas);
+        setPrefSize(950, 650);
+        setMinSize(300, 200);
+
+        setOnScroll(event -> {
+            // Плавный множитель: тачпад присылает мелкие шаги, колесо — крупные
+            double factor = Math.pow(1.002, -event.getDeltaY());
+            if (event.isControlDown()) {
+                zoomDays(factor, dayAt(event.getX()));
+            } else {
+                zoomCents(factor, centsAt(event.getY()));
+            }
+            event.consume();
+        });
+
+        setOnMousePressed(event -> {
+            if (event.getButton() == MouseButton.PRIMARY) {
+                lastMouseX = event.getX();
+                lastMouseY = event.getY();
+            }
+        });
+
+        setOnMouseDragged(event -> {
+            if (event.getButton() != MouseButton.PRIMARY) return;
+            pan(event.getX() - lastMouseX, event.getY() - lastMouseY);
+            lastMouseX = event.getX();
+            lastMouseY = event.getY();
+            event.consume();
+        });
+
+        setOnMouseClicked(event -> {
+            if (event.getButton() == MouseButton.PRIMARY && event.getClickCount() == 2) {
+                resetView();
+            }
+        });
+
+        setOnMouseMoved(event -> {
+            Hit hit = hitTest(event.getX(), event.getY());
+            if (!sameHit(hit, hover)) {
+                hover = hit;
+                redraw();
+            }
+        });
+
+        setOnMouseExited(event -> {
+            if (hover != null) {
+                hover = null;
+                redraw();
+            }
+        });
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+        redraw();
+    }
+
+    /**
+     * Добавляет ряд: дни по возрастанию и рейтинги в сотых той же длины. Пустой ряд не рисуется.
+     * Массивы не копируются и не должны меняться.
+     */
+    public void addSeries(String name, Color color, int[] days, int[] cents) {
+        if (cents.length == 0) return;
+        if (days.length != cents.length) {
+            throw new IllegalArgumentException("Длины дат и рейтингов ряда " + name + " не совпадают");
+        }
+        series.add(new Series(name, color, days, cents));
+    }
+
+    public void clearSeries() {
+        series.clear();
+        hover = null;
+        redraw();
+    }
+
+    /**
+     * Легенда рисуется в строке заголовка; при многих рядах её лучше вынести наружу.
+     */
+    public void setLegendVisible(boolean legendVisible) {
+        this.legendVisible = legendVisible;
+        redraw();
+    }
+
+    public boolean hasSeries() {
+        return !series.isEmpty();
+    }
+
+    /**
+     * Показывает все ряды целиком. Условная стартовая точка в вид по датам не входит: к ней
+     * можно отъехать, но по умолчанию график начинается с первого турнира.
+     */
+    public void resetView() {
+        int firstDay = Integer.MAX_VALUE;
+        int lastDay = Integer.MIN_VALUE;
+        int minValue = Integer.MAX_VALUE;
+        int maxValue = Integer.MIN_VALUE;
+        for (Series s : series) {
+            int[] days = s.days();
+            int first = days.length > 1 && days[0] == START_DAY ? 1 : 0;
+            firstDay = Math.min(firstDay, days[first]);
+            lastDay = Math.max(lastDay, days[days.length - 1]);
+            for (int cents : s.cents()) {
+                minValue = Math.min(minValue, RatingSeries.whole(cents));
+                maxValue = Math.max(maxValue, RatingSeries.whole(cents));
+            }
+        }
+
+        if (series.isEmpty()) {
+            lastDay = (int) LocalDate.now().toEpochDay();
+            firstDay = lastDay - 365;
+            minValue = 0;
+            maxValue = 100;
+        }
+
+        double daySpan = Math.max(30, lastDay - firstDay);
+        minDay = firstDay - daySpan * 0.03;
+        maxDay = lastDay + daySpan * 0.03;
+
+        int padding = Math.max(10, (maxValue - minValue) / 10);
+        minCents = roundDown(Math.max(0, minValue - padding)) * 100.0;
+        maxCents = roundUp(maxValue + padding) * 100.0;
+
+        hover = null;
+        redraw();
+    }
+
+    @Override
+    protected void layoutChildren() {
+        canvas.setWidth(getWidth());
+        canvas.setHeight(getHeight());
+        draw();
+    }
+
+    // Перерисовка откладывается до следующего импульса: несколько событий мыши за кадр дают один кадр
+    private void redraw() {
+        requestLayout();
+    }
+
+    private double plotWidth() {
+        return canvas.getWidth() - LEFT - RIGHT;
+    }
+
+    private double plotHeight() {
+        return canvas.getHeight() - TOP - BOTTOM;
+    }
+
+    private double xOf(double day) {
+        return LEFT + (day - minDay) / (maxDay - minDay) * plotWidth();
+    }
+
+    private double yOf(double cents) {
+        return TOP + (maxCents - cents) / (maxCents - minCents) * plotHeight();
+    }
+
+    private double dayAt(double x) {
+        return minDay + (x - LEFT) / plotWidth() * (maxDay - minDay);
+    }
+
+    private double centsAt(double y) {
+        return maxCents - (y - TOP) / plotHeight() * (maxCents - minCents);
+    }
+
+    private void zoomDays(double factor, double anchor) {
+        double span = clamp((maxDay - minDay) * factor, MIN_DAY_SPAN, MAX_DAY_SPAN);
+        double share = (anchor - minDay) / (maxDay - minDay);
+        minDay = anchor - share * span;
+        maxDay = minDay + span;
+        hover = null;
+        redraw();
+    }
+
+    private void zoomCents(double factor, double anchor) {
+        double span = clamp((maxCents - minCents) * factor, MIN_CENTS_SPAN, MAX_CENTS_SPAN);
+        double share = (anchor - minCents) / (maxCents - minCents);
+        minCents = Math.max(0, anchor - share * span);
+        maxCents = minCents + span;
+        hover = null;
+        redraw();
+    }
+
+    private void pan(double dx, double dy) {
+        double dayShift = -dx / plotWidth() * (maxDay - minDay);
+        double centsShift = dy / plotHeight() * (maxCents - minCents);
+        minDay += dayShift;
+        maxDay += dayShift;
+        // Ниже нуля рейтинг не опускается
+        if (minCents + centsShift >= 0) {
+            minCents += centsShift;
+            maxCents += centsShift;
+        }
+        hover = null;
+        redraw();
+    }
+
+    private void draw() {
+        GraphicsContext gc = canvas.getGraphicsContext2D();
+        double width = canvas.getWidth();
+        double height = canvas.getHeight();
+        gc.setFill(Color.WHITE);
+        gc.fillRect(0, 0, width, height);
+        if (plotWidth() <= 0 || plotHeight() <= 0 || maxDay <= minDay) return;
+
+        gc.setFont(FONT);
+        drawValueAxis(gc);
+        drawTimeAxis(gc);
+
+        gc.save();
+        gc.beginPath();
+        gc.rect(LEFT, TOP, plotWidth(), plotHeight());
+        gc.clip();
+        for (Series s : series) {
+            drawSeries(gc, s);
+        }
+        if (hover != null) {
+            gc.setStroke(AXIS);
+            gc.setLineWidth(1);
+            gc.setLineDashes(4, 4);
+            gc.strokeLine(hover.x(), TOP, hover.x(), TOP + plotHeight());
+            gc.setLineDashes();
+            gc.setFill(hover.series().color());
+            gc.fillOval(hover.x() - 4, hover.y() - 4, 8, 8);
+        }
+        gc.restore();
+
+        gc.setStroke(AXIS);
+        gc.setLineWidth(1);
+        gc.strokeRect(LEFT, TOP, plotWidth(), plotHeight());
+        drawHeader(gc);
+        if (hover != null) {
+            drawHoverBox(gc, hover);
+        }
+    }
+
+    private void drawValueAxis(GraphicsContext gc) {
+        int lower = (int) Math.ceil(minCents / 100);
+        int upper = (int) Math.floor(maxCents / 100);
+        int unit = Math.max(1, calculateNiceTickUnit(Math.max(1, upper - lower)));
+
+        gc.setTextAlign(TextAlignment.RIGHT);
+        gc.setTextBaseline(VPos.CENTER);
+        gc.setLineWidth(1);
+        for (int value = Math.floorDiv(lower + unit - 1, unit) * unit; value <= upper; value += unit) {
+            double y = Math.round(yOf(value * 100.0)) + 0.5;
+            gc.setStroke(GRID);
+            gc.strokeLine(LEFT, y, LEFT + plotWidth(), y);
+            gc.setFill(Color.BLACK);
+            gc.fillText(String.valueOf(value), LEFT - 6, y);
+        }
+    }
+
+    /**
+     * Шаг делений подбирается так, чтобы подписи стояли примерно через 90 пикселей:
+     * дни, недели, месяцы или годы в зависимости от масштаба.
+     */
+    private void drawTimeAxis(GraphicsContext gc) {
+        double span = maxDay - minDay;
+        double wanted = span / Math.max(1, plotWidth() / 90);
+
+        gc.setTextAlign(TextAlignment.CENTER);
+        gc.setTextBaseline(VPos.TOP);
+        for (int step : DAY_STEPS) {
+            if (step >= wanted) {
+                for (long day = (long) Math.ceil(minDay / step) * step; day <= maxDay; day += step) {
+                    timeTick(gc, day, LocalDate.ofEpochDay(day).format(DAY_FORMAT));
+                }
+                return;
+            }
+        }
+
+        int months = MONTH_STEPS[MONTH_STEPS.length - 1];
+        for (int step : MONTH_STEPS) {
+            if (step * 30.44 >= wanted) {
+                months = step;
+                break;
+            }
+        }
+        DateTimeFormatter format = months >= 12 ? YEAR_FORMAT : MONTH_FORMAT;
+        LocalDate first = LocalDate.ofEpochDay((long) Math.floor(minDay)).withDayOfMonth(1);
+        long monthIndex = first.getYear() * 12L + first.getMonthValue() - 1;
+        LocalDate tick = first.minusMonths(Math.floorMod(monthIndex, months));
+        for (; tick.toEpochDay() <= maxDay; tick = tick.plusMonths(months)) {
+            if (tick.toEpochDay() >= minDay) {
+                timeTick(gc, tick.toEpochDay(), tick.format(format));
+            }
+        }
+    }
+
+    private void timeTick(GraphicsContext gc, long day, String label) {
+        double x = Math.round(xOf(day)) + 0.5;
+        gc.setStroke(GRID);
+        gc.strokeLine(x, TOP, x, TOP + plotHeight());
+        gc.setFill(Color.BLACK);
+        gc.fillText(label, x, TOP + plotHeight() + 6);
+    }
+
+    private void drawSeries(GraphicsContext gc, Series s) {
+        int[] days = s.days();
+        int[] cents = s.cents();
+        // По одной точке за краями окна, чтобы линия доходила до границы
+        int from = Math.max(0, lowerBound(days, minDay) - 1);
+        int to = Math.min(days.length, lowerBound(days, maxDay) + 1);
+        if (to <= from) return;
+
+        int[] shown = RatingDownsampler.select(days, from, to, (int) plotWidth(), cents);
+        gc.setStroke(s.color());
+        gc.setLineWidth(2);
+        gc.beginPath();
+        gc.moveTo(xOf(days[shown[0]]), yOf(cents[shown[0]]));
+        for (int i = 1; i < shown.length; i++) {
+            gc.lineTo(xOf(days[shown[i]]), yOf(cents[shown[i]]));
+        }
+        gc.stroke();
+
+        double spacing = plotWidth() / Math.max(1, to - from);
+        if (spacing >= SYMBOL_SPACING) {
+            gc.setFill(s.color());
+            for (int index : shown) {
+                gc.fillOval(xOf(days[index]) - 2.5, yOf(cents[index]) - 2.5, 5, 5);
+            }
+        }
+    }
+
+    private void drawHeader(GraphicsContext gc) {
+        gc.setFill(Color.BLACK);
+        gc.setFont(TITLE_FONT);
+        gc.setTextAlign(TextAlignment.CENTER);
+        gc.setTextBaseline(VPos.CENTER);
+        gc.fillText(title, LEFT + plotWidth() / 2, TOP / 2);
+
+        // Легенда справа от заголовка
+        gc.setFont(FONT);
+        if (!legendVisible) return;
+        gc.setTextAlign(TextAlignment.LEFT);
+        double x = LEFT + plotWidth();
+        for (int i = series.size() - 1; i >= 0; i--) {
+            Series s = series.get(i);
+            x -= textWidth(s.name()) + 30;
+            gc.setStroke(s.color());
+            gc.setLineWidth(2);
+            gc.strokeLine(x, TOP / 2, x + 16, TOP / 2);
+            gc.setFill(Color.BLACK);
+            gc.fillText(s.name(), x + 20, TOP / 2);
+        }
+    }
+
+    private void drawHoverBox(GraphicsContext gc, Hit hit) {
+        int day = hit.series().days()[hit.index()];
+        String date = day == START_DAY ? "Старт" : LocalDate.ofEpochDay(day).format(DAY_FORMAT);
+        String value = hit.series().name() + ": " + RatingSeries.whole(hit.series().cents()[hit.index()]);
+
+        double boxWidth = Math.max(textWidth(date), textWidth(value)) + 12;
+        double boxHeight = 36;
+        double x = hit.x() + 12;
+        double y = hit.y() + 12;
+        if (x + boxWidth > canvas.getWidth()) x = hit.x() - 12 - boxWidth;
+        if (y + boxHeight > canvas.getHeight()) y = hit.y() - 12 - boxHeight;
+
+        gc.setFill(Color.rgb(255, 255, 255, 0.92));
+        gc.fillRect(x, y, boxWidth, boxHeight);
+        gc.setStroke(hit.series().color());
+        gc.setLineWidth(1);
+        gc.strokeRect(x + 0.5, y + 0.5, boxWidth, boxHeight);
+        gc.setFill(Color.BLACK);
+        gc.setTextAlign(TextAlignment.LEFT);
+        gc.setTextBaseline(VPos.TOP);
+        gc.fillText(date, x + 6, y + 4);
+        gc.fillText(value, x + 6, y + 19);
+    }
+
+    /**
+     * Ближайшая к курсору точка в радиусе {@link #HIT_RADIUS} по всем рядам. Кандидаты ищутся
+     * двоичным поиском по дате и просматриваются, пока остаются в радиусе по горизонтали.
+     */
+    private Hit hitTest(double x, double y) {
+        if (x < LEFT || x > LEFT + plotWidth() || y < TOP || y > TOP + plotHeight()) return null;
+        Hit best = null;
+        double bestDistance = HIT_RADIUS;
+        for (Series s : series) {
+            int[] days = s.days();
+            int center = lowerBound(days, dayAt(x));
+            for (int direction = -1; direction <= 1; direction += 2) {
+                int i = direction < 0 ? center - 1 : center;
+                for (; i >= 0 && i < days.length; i += direction) {
+                    double px = xOf(days[i]);
+                    if (Math.abs(px - x) > HIT_RADIUS) break;
+                    double py = yOf(s.cents()[i]);
+                    double distance = Math.hypot(px - x, py - y);
+                    if (distance < bestDistance) {
+                        bestDistance = distance;
+                        best = new Hit(s, i, px, py);
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    private static boolean sameHit(Hit a, Hit b) {
+        if (a == null || b == null) return a == b;
+        return a.series() == b.series() && a.index() == b.index();
+    }
+
+    // Первый индекс с днём не меньше day
+    private static int lowerBound(int[] days, double day) {
+        int low = 0;
+        int high = days.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (days[middle] < day) low = middle + 1;
+            else high = middle;
+        }
+        return low;
+    }
+
+    private static double textWidth(String text) {
+        Text node = new Text(text);
+        node.setFont(FONT);
+        return node.getLayoutBounds().getWidth();
+    }
+
+    private static double clamp(double value, double min, double max) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    private static int roundDown(int value) {
+        if (value < 0) return -roundUp(-value);
+        if (value == 0) return 0;
+        int magnitude = (int) Math.pow(10, Math.max(0, (int) Math.log10(value) - 1));
+        return (value / magnitude) * magnitude;
+    }
+
+    private static int roundUp(int value) {
+        if (value < 0) return -roundDown(-value);
+        if (value == 0) return 0;
+        int magnitude = (int) Math.pow(10, Math.max(0, (int) Math.log10(value) - 1));
+        return ((value + magnitude - 1) / magnitude) * magnitude;
+    }
+
+    private static int calculateNiceTickUnit(int range) {
+        double tickSpacing = range / 8.0;
+        double x = Math.ceil(Math.log10(tickSpacing));
+        double pow10x = Math.pow(10, x);
+        double normalized = tickSpacing / pow10x;
+
+        if (normalized <= 1) return (int) (1 * pow10x);
+        if (normalized <= 2) return (int) (2 * pow10x);
+        if (normalized <= 5) return (int) (5 * pow10x);
+        return (int) (10 * pow10x);
+    }
+}
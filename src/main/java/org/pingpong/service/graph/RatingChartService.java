@@ -1,98 +1,158 @@
 package org.pingpong.service.graph;
 
 import org.pingpong.model.Player;
-import org.pingpong.model.Tournament;
+import org.pingpong.repository.TournamentRepository;
+import org.pingpong.repository.TournamentRepository.TournamentEdit;
+import org.pingpong.service.tournament.TournamentWriteBehind;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.time.LocalDate;
-import java.util.*;
-import java.util.function.Function;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
-
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Истории рейтингов игроков для графика и аналитики. Считаются один раз по дельтам турниров
+ * в целых сотых и хранятся до изменения турниров игрока: синхронизация и удаление игрока
+ * сбрасывают его историю, отложенная правка даты турнира — все истории.
+ */
 @Service
 public class RatingChartService {
 
-    private static final LocalDate START_DATE = LocalDate.of(2000, 1, 1);
+    private static final Logger log = LoggerFactory.getLogger(RatingChartService.class);
 
-    public RatingChartData buildChartData(List<Tournament> tournaments, Player player) {
-        if (tournaments == null || player == null) {
-            throw new IllegalArgumentException("Tournaments and player must not be null");
-        }
+    private final TournamentRepository tournamentRepository;
+    private final TournamentWriteBehind tournamentWriteBehind;
+    private final Map<Long, RatingSeries> cache = new ConcurrentHashMap<>();
 
-        Map<LocalDate, BigDecimal> rttfDeltas = getDeltaMap(tournaments, Tournament::getRttfDelta);
-        Map<LocalDate, BigDecimal> ttwDeltas = getDeltaMap(tournaments, Tournament::getTtwDelta);
+    public RatingChartService(TournamentRepository tournamentRepository, TournamentWriteBehind tournamentWriteBehind) {
+        this.tournamentRepository = tournamentRepository;
+        this.tournamentWriteBehind = tournamentWriteBehind;
+        tournamentWriteBehind.addFlushListener(this::onEditsFlushed);
+    }
 
-        List<LocalDate> allDates = mergeSortedUniqueDates(rttfDeltas.keySet(), ttwDeltas.keySet());
+    public RatingSeries getSeries(Player player) {
+        if (player == null || player.getId() == null) {
+            throw new IllegalArgumentException("Игрок и его ID не могут быть null");
+        }
+        RatingSeries series = cache.get(player.getId());
+        if (series == null) {
+            // Неотправленные правки дат должны попасть в историю
+            tournamentWriteBehind.flush();
+            series = load(player);
+        }
+        return series;
+    }
 
-        List<BigDecimal> rttfRatings = computeRatingHistory(allDates, player.getRttfRating(), rttfDeltas);
-        List<BigDecimal> ttwRatings = computeRatingHistory(allDates, player.getTtwRating(), ttwDeltas);
+    /**
+     * Истории нескольких игроков в том же порядке. Взятые из кэша не пересчитываются,
+     * недостающие строятся параллельно.
+     */
+    public List<RatingSeries> getSeries(List<Player> players) {
+        for (Player player : players) {
+            if (player == null || player.getId() == null) {
+                throw new IllegalArgumentException("Игрок и его ID не могут быть null");
+            }
+        }
+        if (players.stream().anyMatch(player -> !cache.containsKey(player.getId()))) {
+            tournamentWriteBehind.flush();
+        }
 
-        // Поиск максимумов
-        var maxRttfData = findMax(rttfRatings, allDates);
-        var maxTtwData = findMax(ttwRatings, allDates);
+        long start = System.nanoTime();
+        List<CompletableFuture<RatingSeries>> futures = players.stream()
+                .map(player -> {
+                    RatingSeries cached = cache.get(player.getId());
+                    return cached != null
+                            ? CompletableFuture.completedFuture(cached)
+                            : CompletableFuture.supplyAsync(() -> load(player));
+                })
+                .toList();
+        List<RatingSeries> result = futures.stream().map(CompletableFuture::join).toList();
+        log.debug("Истории рейтингов {} игроков: {} мс", players.size(), (System.nanoTime() - start) / 1_000_000);
+        return result;
+    }
 
-        return new RatingChartData(
-                allDates,
-                rttfRatings,
-                ttwRatings,
-                maxRttfData.rating(),
-                maxRttfData.date(),
-                maxTtwData.rating(),
-                maxTtwData.date()
-        );
+    private RatingSeries load(Player player) {
+        long start = System.nanoTime();
+        RatingSeries series = build(tournamentRepository.findRatingDeltas(player.getId()),
+                player.getRttfRating(), player.getTtwRating());
+        cache.put(player.getId(), series);
+        log.debug("История рейтингов {}: {} точек, {} мкс",
+                player.getFio(), series.size(), (System.nanoTime() - start) / 1_000);
+        return series;
     }
 
-    private Map<LocalDate, BigDecimal> getDeltaMap(List<Tournament> tournaments,
-                                                   Function<Tournament, BigDecimal> deltaExtractor) {
-        return tournaments.stream()
-                .filter(t -> deltaExtractor.apply(t) != null)
-                .collect(Collectors.groupingBy(Tournament::getDate,
-                        Collectors.reducing(BigDecimal.ZERO, deltaExtractor, BigDecimal::add)));
+    public void invalidate(Long playerId) {
+        if (playerId != null) cache.remove(playerId);
     }
 
-    private List<LocalDate> mergeSortedUniqueDates(Set<LocalDate> dates1, Set<LocalDate> dates2) {
-        return Stream.concat(Stream.concat(dates1.stream(), dates2.stream()), Stream.of(START_DATE))
-                .distinct()
-                .sorted()
-                .toList();
+    public void invalidateAll() {
+        cache.clear();
     }
 
-    private List<BigDecimal> computeRatingHistory(List<LocalDate> dates, Integer currentRating,
-                                                  Map<LocalDate, BigDecimal> deltas) {
-        if (currentRating == null || currentRating == 0) {
-            return List.of();
+    /**
+     * Строки (дата, rttfDelta, ttwDelta) по возрастанию даты. Рейтинг после последнего дня равен
+     * текущему, к более ранним дням он восстанавливается вычитанием дельт.
+     */
+    static RatingSeries build(List<Object[]> rows, Integer currentRttf, Integer currentTtw) {
+        // Уникальные дни с ненулевыми дельтами плюс стартовая точка на своём месте по порядку
+        int[] days = new int[rows.size() + 1];
+        long[] rttfDeltas = new long[rows.size() + 1];
+        long[] ttwDeltas = new long[rows.size() + 1];
+        int startDay = (int) RatingSeries.START_DATE.toEpochDay();
+        boolean startAdded = false;
+        int size = 0;
+
+        for (Object[] row : rows) {
+            BigDecimal rttf = (BigDecimal) row[1];
+            BigDecimal ttw = (BigDecimal) row[2];
+            if (rttf == null && ttw == null) continue;
+            int day = (int) ((LocalDate) row[0]).toEpochDay();
+            if (!startAdded && day >= startDay) {
+                if (day > startDay) days[size++] = startDay;
+                startAdded = true;
+            }
+            if (size == 0 || days[size - 1] != day) {
+                days[size++] = day;
+            }
+            if (rttf != null) rttfDeltas[size - 1] += cents(rttf);
+            if (ttw != null) ttwDeltas[size - 1] += cents(ttw);
+        }
+        if (!startAdded) {
+            days[size++] = startDay;
         }
 
-        List<BigDecimal> ratings = new ArrayList<>(dates.size());
-        BigDecimal rating = BigDecimal.valueOf(currentRating);
-        ratings.add(rating);
+        int[] trimmedDays = Arrays.copyOf(days, size);
+        return new RatingSeries(trimmedDays, history(currentRttf, rttfDeltas, size), history(currentTtw, ttwDeltas, size));
+    }
 
-        for (int i = dates.size() - 1; i > 0; i--) {
-            LocalDate date = dates.get(i);
-            BigDecimal delta = deltas.getOrDefault(date, BigDecimal.ZERO);
-            rating = rating.subtract(delta);
-            ratings.add(rating); // собираем в обратном порядке
+    private static int[] history(Integer current, long[] deltas, int size) {
+        if (current == null || current == 0) {
+            return new int[0];
+        }
+        int[] ratings = new int[size];
+        long rating = current * 100L;
+        for (int i = size - 1; i >= 0; i--) {
+            ratings[i] = (int) rating;
+            rating -= deltas[i];
         }
-        Collections.reverse(ratings); // теперь правильный порядок
         return ratings;
     }
 
-    private MaxData findMax(List<BigDecimal> ratings, List<LocalDate> dates) {
-        if (ratings.isEmpty()) {
-            return new MaxData(BigDecimal.ZERO, null);
-        }
-        BigDecimal max = BigDecimal.ZERO;
-        LocalDate maxDate = null;
-        for (int i = 0; i < ratings.size(); i++) {
-            if (ratings.get(i).compareTo(max) > 0) {
-                max = ratings.get(i);
-                maxDate = dates.get(i);
-            }
-        }
-        return new MaxData(max, maxDate);
+    private static long cents(BigDecimal value) {
+        return value.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
     }
 
-    private record MaxData(BigDecimal rating, LocalDate date) {}
-}
\ No newline at end of file
+    private void onEditsFlushed(List<TournamentEdit> edits) {
+        // Какому игроку принадлежит турнир, правка не знает; даты правятся редко — сбрасываем всё
+        if (edits.stream().anyMatch(edit -> edit.date() != null)) {
+            invalidateAll();
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package org.pingpong.service.graph;
+
+/**
+ * Прореживание рядов для графика методом Largest-Triangle-Three-Buckets: диапазон делится
+ * на корзины, и из каждой берётся точка, образующая наибольший треугольник с точкой, выбранной
+ * в предыдущей корзине, и средним следующей. Пики и провалы остаются на месте при многократно
+ * меньшем числе точек.
+ */
+final class RatingDownsampler {
+
+    private RatingDownsampler() {
+    }
+
+    /**
+     * Индексы точек диапазона [from, to), которые нужно показать, по возрастанию. Каждый непустой
+     * ряд прореживается до threshold точек отдельно, выбранные точки объединяются, чтобы у рядов
+     * была общая ось дат.
+     */
+    static int[] select(int[] days, int from, int to, int threshold, int[]... series) {
+        boolean[] selected = new boolean[to - from];
+        boolean any = false;
+        for (int[] values : series) {
+            if (values.length == 0) continue;
+            mark(days, values, from, to, threshold, selected);
+            any = true;
+        }
+
+        int count = 0;
+        for (boolean s : selected) {
+            if (!any || s) count++;
+        }
+        int[] indices = new int[count];
+        for (int i = 0, k = 0; i < selected.length; i++) {
+            if (!any || selected[i]) indices[k++] = from + i;
+        }
+        return indices;
+    }
+
+    private static void mark(int[] days, int[] values, int from, int to, int threshold, boolean[] selected) {
+        int n = to - from;
+        if (threshold >= n || threshold < 3) {
+            for (int i = 0; i < n; i++) selected[i] = true;
+            return;
+        }
+
+        // Первая и последняя точки всегда остаются, остальные делятся на threshold - 2 корзины
+        double every = (double) (n - 2) / (threshold - 2);
+        int a = from;
+        selected[0] = true;
+
+        for (int bucket = 0; bucket < threshold - 2; bucket++) {
+            int avgFrom = from + (int) ((bucket + 1) * every) + 1;
+            int avgTo = Math.min(from + (int) ((bucket + 2) * every) + 1, to);
+            double avgX = 0;
+            double avgY = 0;
+            for (int i = avgFrom; i < avgTo; i++) {
+                avgX += days[i];
+                avgY += values[i];
+            }
+            int avgLength = avgTo - avgFrom;
+            if (avgLength > 0) {
+                avgX /= avgLength;
+                avgY /= avgLength;
+            } else {
+                avgX = days[to - 1];
+                avgY = values[to - 1];
+            }
+
+            int rangeFrom = from + (int) (bucket * every) + 1;
+            int rangeTo = from + (int) ((bucket + 1) * every) + 1;
+            double maxArea = -1;
+            int next = rangeFrom;
+            for (int i = rangeFrom; i < rangeTo; i++) {
+                double area = Math.abs(((double) days[a] - avgX) * ((double) values[i] - values[a])
+                        - ((double) days[a] - days[i]) * (avgY - values[a]));
+                if (area > maxArea) {
+                    maxArea = area;
+                    next = i;
+                }
+            }
+            selected[next - from] = true;
+            a = next;
+        }
+        selected[n - 1] = true;
+    }
+}
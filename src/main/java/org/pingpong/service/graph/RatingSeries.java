@@ -0,0 +1,87 @@
+package org.pingpong.service.graph;
+
+import java.time.LocalDate;
+
+/**
+ * История рейтингов игрока в примитивных массивах: дни (epoch day) по возрастанию и рейтинги
+ * RTTF/TTW в сотых после каждого дня. Первая точка — условный старт {@link #START_DATE}.
+ * Пустой массив рейтинга — у игрока нет этого рейтинга.
+ * <p>
+ * Массивы отдаются как есть, без копирования: читающий код не должен их менять.
+ */
+public final class RatingSeries {
+
+    public static final LocalDate START_DATE = LocalDate.of(2000, 1, 1);
+
+    private final int[] days;
+    private final int[] rttfCents;
+    private final int[] ttwCents;
+    private final int maxRttfIndex;
+    private final int maxTtwIndex;
+
+    RatingSeries(int[] days, int[] rttfCents, int[] ttwCents) {
+        this.days = days;
+        this.rttfCents = rttfCents;
+        this.ttwCents = ttwCents;
+        this.maxRttfIndex = maxIndex(rttfCents);
+        this.maxTtwIndex = maxIndex(ttwCents);
+    }
+
+    public int size() {
+        return days.length;
+    }
+
+    public int[] days() {
+        return days;
+    }
+
+    public int[] rttfCents() {
+        return rttfCents;
+    }
+
+    public int[] ttwCents() {
+        return ttwCents;
+    }
+
+    public LocalDate date(int index) {
+        return LocalDate.ofEpochDay(days[index]);
+    }
+
+    public boolean hasRttf() {
+        return rttfCents.length > 0;
+    }
+
+    public boolean hasTtw() {
+        return ttwCents.length > 0;
+    }
+
+    /**
+     * Индекс точки с максимальным RTTF (первой из равных) или -1, если положительных значений нет.
+     */
+    public int maxRttfIndex() {
+        return maxRttfIndex;
+    }
+
+    public int maxTtwIndex() {
+        return maxTtwIndex;
+    }
+
+    /**
+     * Рейтинг целым числом, как он показывается (дробная часть отбрасывается).
+     */
+    public static int whole(int cents) {
+        return cents / 100;
+    }
+
+    private static int maxIndex(int[] cents) {
+        int index = -1;
+        int max = 0;
+        for (int i = 0; i < cents.length; i++) {
+            if (cents[i] > max) {
+                max = cents[i];
+                index = i;
+            }
+        }
+        return index;
+    }
+}
@@ -0,0 +1,255 @@
+package org.pingpong.service.headtohead;
+
+import org.pingpong.NameDictionary;
+import org.pingpong.Utils;
+import org.pingpong.model.Game;
+import org.pingpong.model.Player;
+import org.pingpong.model.Tournament;
+import org.pingpong.repository.HeadToHeadRepository;
+import org.pingpong.repository.HeadToHeadRepository.Meeting;
+import org.pingpong.repository.TournamentChangeListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Личные встречи: для каждого отслеживаемого игрока итог игр против каждого соперника.
+ * Индекс строится из GAMES одним запросом при первом обращении, дальше поддерживается
+ * по изменениям синхронизации и удалению игр. Поиск по игроку и сопернику — два обращения к HashMap.
+ * <p>
+ * Ключ — id канонического имени соперника в NameDictionary (имя в словаре соперников уже сокращено
+ * парсером, поэтому id берётся через intern, без повторного сокращения).
+ */
+@Service
+public class HeadToHeadService {
+
+    private static final Logger log = LoggerFactory.getLogger(HeadToHeadService.class);
+
+    private final HeadToHeadRepository repository;
+
+    // playerId → id имени соперника → итог; null — индекс ещё не построен или сброшен
+    private Map<Long, Map<Integer, Tally>> index;
+
+    public HeadToHeadService(HeadToHeadRepository repository) {
+        this.repository = repository;
+    }
+
+    /**
+     * Итог встреч игрока с соперником или null, если они не встречались.
+     * Имя принимается и полным («Фамилия Имя Отчество»), и каноническим.
+     */
+    public synchronized HeadToHead find(Long playerId, String opponent) {
+        if (playerId == null || opponent == null) return null;
+        Map<Integer, Tally> byOpponent = index().get(playerId);
+        if (byOpponent == null) return null;
+
+        // Введённое имя в словарь не добавляется: незнакомого имени нет и среди соперников
+        int id = NameDictionary.find(opponent.trim());
+        Tally tally = id >= 0 ? byOpponent.get(id) : null;
+        if (tally == null) {
+            id = NameDictionary.find(Utils.shortenFio(opponent));
+            tally = id >= 0 ? byOpponent.get(id) : null;
+        }
+        return tally != null ? tally.toHeadToHead(NameDictionary.name(id)) : null;
+    }
+
+    /**
+     * Все соперники игрока, чаще встречавшиеся — первыми.
+     */
+    public synchronized List<HeadToHead> findAll(Long playerId) {
+        Map<Integer, Tally> byOpponent = index().get(playerId);
+        if (byOpponent == null) return List.of();
+        List<HeadToHead> result = new ArrayList<>(byOpponent.size());
+        byOpponent.forEach((id, tally) -> result.add(tally.toHeadToHead(NameDictionary.name(id))));
+        result.sort(Comparator.comparingInt(HeadToHead::meetings).reversed()
+                .thenComparing(HeadToHead::opponent));
+        return result;
+    }
+
+    public ChangeTracker newTracker() {
+        return new ChangeTracker();
+    }
+
+    /**
+     * Применяет изменения, накопленные за успешную синхронизацию игрока.
+     */
+    public synchronized void applySync(Long playerId, ChangeTracker tracker) {
+        if (index == null) return; // построится из БД при первом обращении
+        if (tracker.reset) {
+            index.remove(playerId);
+            Map<Integer, Tally> byOpponent = new HashMap<>();
+            for (Meeting meeting : repository.findMeetings(playerId)) {
+                tally(byOpponent, meeting.opponent()).add(meeting, 1);
+            }
+            if (!byOpponent.isEmpty()) index.put(playerId, byOpponent);
+            return;
+        }
+
+        Set<Integer> staleDates = new HashSet<>();
+        for (Meeting meeting : tracker.removed) {
+            remove(playerId, meeting, staleDates);
+        }
+        for (Meeting meeting : tracker.added) {
+            tally(index.computeIfAbsent(playerId, id -> new HashMap<>()), meeting.opponent()).add(meeting, 1);
+        }
+        refreshLastMeetings(playerId, staleDates);
+    }
+
+    public synchronized void gameRemoved(Player player, Tournament tournament, Game game) {
+        if (index == null || player == null || game.getOpponentName() == null) return;
+        Set<Integer> staleDates = new HashSet<>();
+        remove(player.getId(), meeting(tournament, game), staleDates);
+        refreshLastMeetings(player.getId(), staleDates);
+    }
+
+    public synchronized void playerRemoved(Long playerId) {
+        if (index != null) index.remove(playerId);
+    }
+
+    /**
+     * Сбрасывает индекс целиком (например, после импорта базы).
+     */
+    public synchronized void invalidate() {
+        index = null;
+    }
+
+    private Map<Long, Map<Integer, Tally>> index() {
+        if (index == null) {
+            long start = System.nanoTime();
+            List<Meeting> meetings = repository.findMeetings(null);
+            Map<Long, Map<Integer, Tally>> built = new HashMap<>();
+            for (Meeting meeting : meetings) {
+                tally(built.computeIfAbsent(meeting.playerId(), id -> new HashMap<>()), meeting.opponent())
+                        .add(meeting, 1);
+            }
+            index = built;
+            log.info("Индекс личных встреч: {} игр, {} игроков, {} мс",
+                    meetings.size(), built.size(), (System.nanoTime() - start) / 1_000_000);
+        }
+        return index;
+    }
+
+    private void remove(Long playerId, Meeting meeting, Set<Integer> staleDates) {
+        Map<Integer, Tally> byOpponent = index.get(playerId);
+        int opponent = NameDictionary.intern(meeting.opponent());
+        Tally tally = byOpponent != null ? byOpponent.get(opponent) : null;
+        if (tally == null) return;
+
+        tally.add(meeting, -1);
+        if (tally.meetings <= 0) {
+            byOpponent.remove(opponent);
+            staleDates.remove(opponent);
+        } else if (meeting.date() != null && meeting.date().equals(tally.lastMeeting)) {
+            // Последнюю дату вычитанием не восстановить
+            staleDates.add(opponent);
+        }
+    }
+
+    private void refreshLastMeetings(Long playerId, Set<Integer> opponents) {
+        Map<Integer, Tally> byOpponent = index.get(playerId);
+        for (int opponent : opponents) {
+            Tally tally = byOpponent != null ? byOpponent.get(opponent) : null;
+            if (tally != null) {
+                tally.lastMeeting = repository.findLastMeeting(playerId, NameDictionary.name(opponent));
+            }
+        }
+    }
+
+    private static Tally tally(Map<Integer, Tally> byOpponent, String opponent) {
+        return byOpponent.computeIfAbsent(NameDictionary.intern(opponent), id -> new Tally());
+    }
+
+    private static Meeting meeting(Tournament tournament, Game game) {
+        return new Meeting(null, game.getOpponentName(), tournament.getDate(), game.getScore(),
+                game.getOpponentScore(), game.getRttfDelta(), game.getTtwDelta());
+    }
+
+    /**
+     * Копит игры изменённых турниров в ходе синхронизации; в индекс они попадают только после commit.
+     */
+    public static class ChangeTracker implements TournamentChangeListener {
+        private final List<Meeting> removed = new ArrayList<>();
+        private final List<Meeting> added = new ArrayList<>();
+        private boolean reset;
+
+        @Override
+        public void removed(Tournament tournament) {
+            collect(tournament, removed);
+        }
+
+        @Override
+        public void added(Tournament tournament) {
+            collect(tournament, added);
+        }
+
+        @Override
+        public void reset() {
+            reset = true;
+        }
+
+        private static void collect(Tournament tournament, List<Meeting> target) {
+            if (tournament.getGames() == null) return;
+            for (Game game : tournament.getGames()) {
+                if (game.getOpponentName() != null) {
+                    target.add(meeting(tournament, game));
+                }
+            }
+        }
+    }
+
+    private static final class Tally {
+        int meetings;
+        int wins;
+        int losses;
+        int setsWon;
+        int setsLost;
+        LocalDate lastMeeting;
+        BigDecimal rttfDelta = BigDecimal.ZERO;
+        BigDecimal ttwDelta = BigDecimal.ZERO;
+
+        void add(Meeting meeting, int sign) {
+            meetings += sign;
+            Integer score = meeting.score();
+            Integer opponentScore = meeting.opponentScore();
+            if (score != null) setsWon += sign * score;
+            if (opponentScore != null) setsLost += sign * opponentScore;
+            if (score != null && opponentScore != null) {
+                if (score > opponentScore) wins += sign;
+                else if (score < opponentScore) losses += sign;
+            }
+            if (meeting.rttfDelta() != null) {
+                rttfDelta = sign > 0 ? rttfDelta.add(meeting.rttfDelta()) : rttfDelta.subtract(meeting.rttfDelta());
+            }
+            if (meeting.ttwDelta() != null) {
+                ttwDelta = sign > 0 ? ttwDelta.add(meeting.ttwDelta()) : ttwDelta.subtract(meeting.ttwDelta());
+            }
+            if (sign > 0 && meeting.date() != null && (lastMeeting == null || meeting.date().isAfter(lastMeeting))) {
+                lastMeeting = meeting.date();
+            }
+        }
+
+        HeadToHead toHeadToHead(String opponent) {
+            return new HeadToHead(opponent, meetings, wins, losses, setsWon, setsLost, lastMeeting,
+                    rttfDelta, ttwDelta);
+        }
+    }
+
+    public record HeadToHead(String opponent, int meetings, int wins, int losses, int setsWon, int setsLost,
+                             LocalDate lastMeeting, BigDecimal rttfDelta, BigDecimal ttwDelta) {
+
+        public double winRate() {
+            int decided = wins + losses;
+            return decided > 0 ? wins * 100.0 / decided : 0.0;
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package org.pingpong.service.leaderboard;
+
+import org.pingpong.model.Player;
+import org.pingpong.model.PlayerStats;
+import org.pingpong.repository.PlayerRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Таблицы лидеров: по каждому показателю игроки лежат в TreeSet, упорядоченном по значению.
+ * Изменение статистики одного игрока переставляет только его записи, страница рейтинга читается
+ * с начала упорядоченного набора без сортировки всех игроков.
+ * <p>
+ * Период (год, квартал, месяц) — фильтр по дате последнего турнира поверх того же порядка:
+ * состав периода меняется с календарём, поэтому отдельные наборы на период не хранятся.
+ */
+@Service
+public class LeaderboardService {
+
+    private static final Logger log = LoggerFactory.getLogger(LeaderboardService.class);
+
+    // Процент побед по паре игр ничего не говорит — в таблицу по проценту попадают с этого числа игр
+    static final int MIN_GAMES_FOR_RATE = 20;
+
+    public enum Metric {
+        WIN_RATE("Процент побед", p -> rate(p.getTotalWins(), p.getTotalLosses())),
+        RTTF_WIN_RATE("Процент побед RTTF", p -> rate(p.getRttfWins(), p.getRttfLosses())),
+        TTW_WIN_RATE("Процент побед TTW", p -> rate(p.getTtwWins(), p.getTtwLosses())),
+        RTTF_RATING("Рейтинг RTTF", p -> positive(p.getRttfRating())),
+        TTW_RATING("Рейтинг TTW", p -> positive(p.getTtwRating())),
+        MEDALS("Медали", p -> medals(p.getStats())),
+        TOURNAMENTS("Турниры", p -> p.getTotalTours() > 0 ? p.getTotalTours() : Double.NaN),
+        GAMES("Игры", p -> p.getTotalGames() > 0 ? p.getTotalGames() : Double.NaN);
+
+        private final String title;
+        // NaN — игрок в этой таблице не участвует
+        private final ToDoubleFunction<Player> score;
+
+        Metric(String title, ToDoubleFunction<Player> score) {
+            this.title = title;
+            this.score = score;
+        }
+
+        public String format(double value) {
+            return switch (this) {
+                case WIN_RATE, RTTF_WIN_RATE, TTW_WIN_RATE -> String.format("%.1f%%", value);
+                case MEDALS -> String.format("🥇%d 🥈%d 🥉%d",
+                        (long) value / 100_000_000, (long) value / 10_000 % 10_000, (long) value % 10_000);
+                default -> String.valueOf((long) value);
+            };
+        }
+
+        @Override
+        public String toString() {
+            return title;
+        }
+    }
+
+    public enum Period {
+        ALL("За всё время", 0),
+        YEAR("Играли за год", 365),
+        QUARTER("Играли за 3 месяца", 91),
+        MONTH("Играли за месяц", 30);
+
+        private final String title;
+        private final int days;
+
+        Period(String title, int days) {
+            this.title = title;
+            this.days = days;
+        }
+
+        @Override
+        public String toString() {
+            return title;
+        }
+    }
+
+    private final PlayerRepository playerRepository;
+
+    // null — таблицы ещё не построены или сброшены
+    private Map<Metric, TreeSet<Entry>> rankings;
+    private Map<Long, Snapshot> snapshots;
+
+    public LeaderboardService(PlayerRepository playerRepository) {
+        this.playerRepository = playerRepository;
+    }
+
+    /**
+     * Строка таблицы: место, игрок и значение показателя.
+     */
+    public record Standing(int rank, long playerId, String fio, double value, LocalDate lastGameDate) {
+    }
+
+    private record Entry(long playerId, String fio, double score) {
+    }
+
+    private record Snapshot(String fio, LocalDate lastGameDate, double[] scores) {
+    }
+
+    // Больше — выше; при равенстве по имени, затем по id, чтобы записи не склеивались
+    private static final Comparator<Entry> ORDER = Comparator.comparingDouble(Entry::score).reversed()
+            .thenComparing(Entry::fio, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparingLong(Entry::playerId);
+
+    /**
+     * Страница таблицы: limit строк, начиная с места offset + 1.
+     */
+    public synchronized List<Standing> page(Metric metric, Period period, int offset, int limit) {
+        ensureBuilt();
+        LocalDate since = period.days > 0 ? LocalDate.now().minusDays(period.days) : null;
+        List<Standing> page = new ArrayList<>(Math.min(limit, 256));
+        int rank = 0;
+        for (Entry entry : rankings.get(metric)) {
+            LocalDate last = snapshots.get(entry.playerId()).lastGameDate();
+            if (since != null && (last == null || last.isBefore(since))) continue;
+            rank++;
+            if (rank <= offset) continue;
+            page.add(new Standing(rank, entry.playerId(), entry.fio(), entry.score(), last));
+            if (page.size() == limit) break;
+        }
+        return page;
+    }
+
+    /**
+     * Полная перестройка по загруженным игрокам — после загрузки всей таблицы.
+     */
+    public synchronized void rebuild(List<Player> players) {
+        long start = System.nanoTime();
+        rankings = new EnumMap<>(Metric.class);
+        for (Metric metric : Metric.values()) {
+            rankings.put(metric, new TreeSet<>(ORDER));
+        }
+        snapshots = new HashMap<>(players.size() * 2);
+        for (Player player : players) {
+            put(player);
+        }
+        log.debug("Таблицы лидеров: {} игроков за {} мс", players.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Переставляет игрока после изменения его статистики или рейтинга. До первого построения
+     * ничего не делает: таблицы потом соберутся целиком.
+     */
+    public synchronized void update(Player player) {
+        if (rankings == null || player == null || player.getId() == null || !player.hasStats()) return;
+        remove(player.getId());
+        put(player);
+    }
+
+    public synchronized void playerRemoved(Long playerId) {
+        if (rankings == null || playerId == null) return;
+        remove(playerId);
+    }
+
+    public synchronized void invalidate() {
+        rankings = null;
+        snapshots = null;
+    }
+
+    private void ensureBuilt() {
+        if (rankings == null) {
+            rebuild(playerRepository.findAllSummaries());
+        }
+    }
+
+    private void put(Player player) {
+        Metric[] metrics = Metric.values();
+        double[] scores = new double[metrics.length];
+        for (Metric metric : metrics) {
+            double score = metric.score.applyAsDouble(player);
+            scores[metric.ordinal()] = score;
+            if (!Double.isNaN(score)) {
+                rankings.get(metric).add(new Entry(player.getId(), player.getFio(), score));
+            }
+        }
+        LocalDate last = player.getStats().getLastGameDate();
+        snapshots.put(player.getId(), new Snapshot(player.getFio(), LocalDate.MIN.equals(last) ? null : last, scores));
+    }
+
+    private void remove(Long playerId) {
+        Snapshot old = snapshots.remove(playerId);
+        if (old == null) return;
+        for (Metric metric : Metric.values()) {
+            double score = old.scores()[metric.ordinal()];
+            if (!Double.isNaN(score)) {
+                rankings.get(metric).remove(new Entry(playerId, old.fio(), score));
+            }
+        }
+    }
+
+    private static double rate(int wins, int losses) {
+        int games = wins + losses;
+        return games >= MIN_GAMES_FOR_RATE ? wins * 100.0 / games : Double.NaN;
+    }
+
+    private static double positive(Integer rating) {
+        return rating != null && rating > 0 ? rating : Double.NaN;
+    }
+
+    // Золото важнее любого числа серебра, серебро — бронзы
+    private static double medals(PlayerStats stats) {
+        int first = Math.min(stats.getFirstPlaces(), 9_999);
+        int second = Math.min(stats.getSecondPlaces(), 9_999);
+        int third = Math.min(stats.getThirdPlaces(), 9_999);
+        if (first + second + third == 0) return Double.NaN;
+        return first * 100_000_000.0 + second * 10_000.0 + third;
+    }
+}
@@ -0,0 +1,142 @@
+package org.pingpong.service.maintenance;
+
+import org.pingpong.repository.MaintenanceRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Обслуживание файла базы: обновление статистики планировщика, подбор размера кэша MVStore
+ * под объём данных, резервная копия и сжатие.
+ * <p>
+ * Сжатие закрывает базу, поэтому из интерфейса оно только заказывается и выполняется при выходе,
+ * а в консольном режиме ({@code --maintenance}) идёт последним шагом.
+ */
+@Service
+public class MaintenanceService {
+
+    private static final Logger log = LoggerFactory.getLogger(MaintenanceService.class);
+
+    private static final Path BACKUP_DIR = Path.of("backups");
+    private static final DateTimeFormatter BACKUP_STAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+    private static final int MIN_CACHE_SIZE_KB = 16 * 1024;
+
+    private final MaintenanceRepository repository;
+    private volatile boolean compactionRequested;
+
+    public MaintenanceService(MaintenanceRepository repository) {
+        this.repository = repository;
+    }
+
+    /**
+     * Обслуживание на работающей базе: ANALYZE, размер кэша и резервная копия (если backup не null).
+     */
+    public MaintenanceReport runOnline(Path backup) {
+        long sizeBefore = repository.getFileSize();
+        long liveDataSize = repository.getLiveDataSize();
+        long probeBefore = repository.probeLatency();
+
+        repository.analyze();
+        int cacheSizeKb = tuneCacheSize(liveDataSize);
+        if (backup != null) {
+            backup(backup);
+        }
+
+        MaintenanceReport report = new MaintenanceReport(sizeBefore, repository.getFileSize(),
+                probeBefore, repository.probeLatency(), cacheSizeKb, backup, false);
+        log.info("Обслуживание базы: {}", report);
+        return report;
+    }
+
+    /**
+     * Полное обслуживание для консольного режима. После сжатия база закрыта, приложение
+     * должно завершиться.
+     */
+    public MaintenanceReport runFull(Path backup) {
+        MaintenanceReport online = runOnline(backup);
+        long start = System.nanoTime();
+        repository.compact();
+        log.info("Сжатие базы: {} мс", (System.nanoTime() - start) / 1_000_000);
+
+        MaintenanceReport report = new MaintenanceReport(online.sizeBefore(), repository.getFileSize(),
+                online.probeMsBefore(), repository.probeLatencyDirect(), online.cacheSizeKb(), backup, true);
+        log.info("Обслуживание базы со сжатием: {}", report);
+        return report;
+    }
+
+    public void requestCompactionOnExit() {
+        compactionRequested = true;
+    }
+
+    public boolean isCompactionRequested() {
+        return compactionRequested;
+    }
+
+    /**
+     * Вызывается последним при выходе из приложения, когда с базой уже никто не работает.
+     */
+    public void compactIfRequested() {
+        if (!compactionRequested) return;
+        long sizeBefore = repository.getFileSize();
+        long start = System.nanoTime();
+        repository.compact();
+        log.info("Сжатие базы при выходе: {} → {} КБ, {} мс",
+                sizeBefore / 1024, repository.getFileSize() / 1024, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    public Path newBackupFile() {
+        return BACKUP_DIR.resolve("ttw_rttf_db-" + LocalDateTime.now().format(BACKUP_STAMP) + ".zip");
+    }
+
+    /**
+     * Кэш под все живые данные с запасом в четверть, но не меньше значения H2 по умолчанию
+     * и не больше четверти доступной JVM памяти.
+     */
+    static int recommendedCacheSizeKb(long dataSize, long maxHeap) {
+        long wanted = dataSize / 1024 * 5 / 4;
+        long limit = Math.max(MIN_CACHE_SIZE_KB, maxHeap / 1024 / 4);
+        return (int) Math.min(limit, Math.max(MIN_CACHE_SIZE_KB, wanted));
+    }
+
+    private int tuneCacheSize(long liveDataSize) {
+        int current = repository.getCacheSizeKb();
+        int recommended = recommendedCacheSizeKb(liveDataSize, Runtime.getRuntime().maxMemory());
+        if (recommended != current) {
+            repository.setCacheSizeKb(recommended);
+            log.info("Размер кэша MVStore: {} → {} КБ", current, recommended);
+        }
+        return recommended;
+    }
+
+    private void backup(Path backup) {
+        try {
+            Path dir = backup.toAbsolutePath().getParent();
+            if (dir != null) {
+                Files.createDirectories(dir);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        long start = System.nanoTime();
+        repository.backupTo(backup);
+        log.info("Резервная копия {}: {} мс", backup, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    public record MaintenanceReport(long sizeBefore, long sizeAfter, long probeMsBefore, long probeMsAfter,
+                                    int cacheSizeKb, Path backup, boolean compacted) {
+        @Override
+        public String toString() {
+            return String.format("файл %d → %d КБ%s, пробные запросы %d → %d мс, кэш %d КБ%s",
+                    sizeBefore / 1024, sizeAfter / 1024, compacted ? " (сжат)" : "",
+                    probeMsBefore, probeMsAfter, cacheSizeKb,
+                    backup != null ? ", копия " + backup : "");
+        }
+    }
+}
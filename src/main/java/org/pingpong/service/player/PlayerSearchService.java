@@ -45,7 +45,8 @@ public class PlayerSearchService {
             @Override
             protected Void call() throws Exception {
                 Player merged = mergePlayerData(rttf, ttw);
-                playerService.save(merged, LocalDate.MIN, false);
+                // Новый игрок ещё не показан в таблице: результат можно записать в него здесь же
+                playerService.applySave(merged, playerService.save(merged, LocalDate.MIN, false));
                 return null;
             }
         };
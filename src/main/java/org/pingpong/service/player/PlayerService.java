@@ -1,15 +1,32 @@
 package org.pingpong.service.player;
 
 import org.pingpong.model.Player;
+import org.pingpong.model.PlayerStats;
 
 import java.io.IOException;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 
 public interface PlayerService {
 
     List<Player> findAllPlayers();
-    // Новый метод для турниров игрока
-    Player save(Player player, LocalDate dateFrom, Boolean fillEmptyPlaces) throws IOException;
+    // Игроки без статистики — для первого показа таблицы, статистику затем дописывает applyStats
+    List<Player> findPlayersWithoutStats();
+    // Статистика всех игроков по ID; объекты игроков не трогает, поэтому можно звать из фонового потока
+    Map<Long, PlayerStats> loadStats();
+    // Записывает статистику в игроков; для уже показанных в таблице — только из потока JavaFX
+    void applyStats(List<Player> players, Map<Long, PlayerStats> statsByPlayer);
+    // Синхронизирует турниры игрока; сам объект не меняет — результат записывает applySave
+    SaveResult save(Player player, LocalDate dateFrom, Boolean fillEmptyPlaces) throws IOException;
+    // Для игрока, показанного в таблице, — только из потока JavaFX
+    void applySave(Player player, SaveResult result);
     void deletePlayer(Player player);
+
+    /**
+     * Итог синхронизации: ID и рейтинги игрока с сайтов и изменение его статистики.
+     */
+    record SaveResult(Long id, String fio, Integer rttfRating, Integer ttwRating,
+                      PlayerStatsUpdater.StatsChange stats) {
+    }
 }
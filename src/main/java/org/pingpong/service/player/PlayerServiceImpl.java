@@ -1,31 +1,77 @@
 package org.pingpong.service.player;
 
 import org.pingpong.model.Player;
+import org.pingpong.model.PlayerStats;
 import org.pingpong.model.Tournament;
 import org.pingpong.repository.PlayerRepository;
-import org.pingpong.service.PlayerStatsService;
-import org.pingpong.service.player.parser.TtwPlayerParser;
+import org.pingpong.repository.PlayerRepository.SyncResult;
+import org.pingpong.repository.TournamentRepository;
+import org.pingpong.service.graph.RatingChartService;
+import org.pingpong.service.headtohead.HeadToHeadService;
+import org.pingpong.service.leaderboard.LeaderboardService;
+import org.pingpong.service.prediction.PredictionService;
+import org.pingpong.service.tournament.TournamentWriteBehind;
+import org.pingpong.service.tournament.TtwRosterService;
+import org.pingpong.service.window.WindowStatsService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
 
 @Service
 public class PlayerServiceImpl implements PlayerService {
 
     private final PlayerRepository playerRepository;
+    private final TournamentRepository tournamentRepository;
+    private final TournamentWriteBehind tournamentWriteBehind;
+    private final PlayerStatsUpdater statsUpdater;
+    private final HeadToHeadService headToHeadService;
+    private final PredictionService predictionService;
+    private final RatingChartService ratingChartService;
+    private final LeaderboardService leaderboardService;
+    private final TtwRosterService ttwRosterService;
+    private final WindowStatsService windowStatsService;
     private static final Logger log = LoggerFactory.getLogger(PlayerServiceImpl.class);
 
-    public PlayerServiceImpl(PlayerRepository playerRepository) {
+    public PlayerServiceImpl(PlayerRepository playerRepository, TournamentRepository tournamentRepository,
+                             TournamentWriteBehind tournamentWriteBehind,
+                             PlayerStatsUpdater statsUpdater, HeadToHeadService headToHeadService,
+                             PredictionService predictionService, RatingChartService ratingChartService,
+                             LeaderboardService leaderboardService, TtwRosterService ttwRosterService,
+                             WindowStatsService windowStatsService) {
         this.playerRepository = playerRepository;
+        this.tournamentRepository = tournamentRepository;
+        this.tournamentWriteBehind = tournamentWriteBehind;
+        this.statsUpdater = statsUpdater;
+        this.headToHeadService = headToHeadService;
+        this.predictionService = predictionService;
+        this.ratingChartService = ratingChartService;
+        this.leaderboardService = leaderboardService;
+        this.ttwRosterService = ttwRosterService;
+        this.windowStatsService = windowStatsService;
     }
 
     @Override
-    public Player save(Player player, LocalDate dateFrom, Boolean fillEmptyPlaces) throws IOException {
+    public SaveResult save(Player source, LocalDate dateFrom, Boolean fillEmptyPlaces) throws IOException {
+        boolean hadStats = source.hasStats();
+
+        // Переданный игрок может быть показан в таблице, поэтому разбор и синхронизация идут на копии
+        Player player = Player.builder()
+                .id(source.getId())
+                .fio(source.getFio())
+                .rttfId(source.getRttfId())
+                .ttwId(source.getTtwId())
+                .rttfRating(source.getRttfRating())
+                .ttwRating(source.getTtwRating())
+                .build();
+
         // Поиск существующего игрока через репозиторий
         Player existingPlayer = findPlayerId(player);
         if (existingPlayer != null) {
@@ -34,30 +80,25 @@ public class PlayerServiceImpl implements PlayerService {
             player.setTtwRating(existingPlayer.getTtwRating());
         }
 
-        // Инициализация списка турниров
-        if (player.getTournamentList() == null) {
-            player.setTournamentList(new java.util.ArrayList<>());
-        }
-
-        // Удалить старые турниры
-        player.getTournamentList().removeIf(t ->
-                t.getDate() != null && !t.getDate().isBefore(dateFrom) && !t.getDate().equals(dateFrom)
-        );
-
-        // Парсинг новых турниров
+        // Парсинг новых турниров: в списке игрока остаются только загруженные с сайтов
+        player.setTournamentList(new ArrayList<>());
         List<Tournament> newTournaments = player.ParsePlayerTournaments(dateFrom);
-        for (Tournament tournament : newTournaments) {
-            tournament.setPlayer(player);
-            player.addTournament(tournament);
-        }
 
-        // Асинхронное заполнение мест
+        // Турниры TTW без места, оставшиеся в БД до dateFrom: синхронизация их не трогает,
+        // место для них дописывается отдельной правкой
+        List<Tournament> olderWithoutPlace = player.getId() == null ? List.of()
+                : tournamentRepository.findTtwWithoutPlace(player.getId()).stream()
+                        .filter(t -> t.getDate() == null || !t.getDate().isAfter(dateFrom))
+                        .toList();
+
+        // Асинхронное заполнение мест: состав турнира, уже прочитанный для другого игрока, берётся из БД
         var fio = player.getFio();
-        List<CompletableFuture<Void>> futures = player.getTournamentList().stream()
-                .filter(t -> t.getPlace() == null)
+        List<CompletableFuture<Void>> futures = Stream.concat(
+                        newTournaments.stream().filter(t -> t.getPlace() == null),
+                        olderWithoutPlace.stream())
                 .map(tournament -> CompletableFuture.runAsync(() -> {
                     try {
-                        var ttwPlace = TtwPlayerParser.getTournamentPlace(tournament, fio);
+                        var ttwPlace = ttwRosterService.findPlace(tournament, fio);
                         tournament.setPlace(ttwPlace);
                     } catch (IOException e) {
                         log.error("Ошибка при обновлении места турнира id={}:\n {}",
@@ -68,9 +109,43 @@ public class PlayerServiceImpl implements PlayerService {
 
         CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
 
-        // Сохраняем через репозиторий
-        playerRepository.save(player);
-        return player;
+        int placesFilled = 0;
+        for (Tournament tournament : olderWithoutPlace) {
+            if (tournament.getPlace() != null && tournament.getPlace() > 0) {
+                tournamentWriteBehind.updatePlace(tournament.getId(), tournament.getPlace());
+                placesFilled++;
+            }
+        }
+
+        // Отложенные правки пишутся до сравнения с БД, иначе синхронизация их не увидит
+        tournamentWriteBehind.flush();
+
+        // Сохраняем только изменения относительно БД; статистика и личные встречи пересчитываются по ним же
+        PlayerStatsUpdater.ChangeTracker statsTracker = statsUpdater.newTracker();
+        HeadToHeadService.ChangeTracker headToHeadTracker = headToHeadService.newTracker();
+        SyncResult result = playerRepository.sync(player, dateFrom, newTournaments,
+                statsTracker.andThen(headToHeadTracker));
+        // Места старых турниров меняют медали мимо трекера — тогда статистика берётся из БД целиком
+        PlayerStatsUpdater.StatsChange statsChange = statsUpdater.prepareSync(player.getId(),
+                hadStats && placesFilled == 0 ? source.getStats() : null, statsTracker);
+        headToHeadService.applySync(player.getId(), headToHeadTracker);
+        // Текущий рейтинг мог обновиться и без изменений в турнирах
+        ratingChartService.invalidate(player.getId());
+        if (result.inserted() + result.updated() + result.deleted() > 0) {
+            predictionService.invalidate();
+        }
+        log.info("Синхронизация {}: добавлено {}, изменено {}, удалено {}, места в прежних турнирах: {}",
+                player.getFio(), result.inserted(), result.updated(), result.deleted(), placesFilled);
+        return new SaveResult(player.getId(), player.getFio(), player.getRttfRating(), player.getTtwRating(), statsChange);
+    }
+
+    @Override
+    public void applySave(Player player, SaveResult result) {
+        player.setId(result.id());
+        player.setFio(result.fio());
+        player.setRttfRating(result.rttfRating());
+        player.setTtwRating(result.ttwRating());
+        statsUpdater.apply(player, result.stats());
     }
 
     private Player findPlayerId(Player player) {
@@ -87,21 +162,45 @@ public class PlayerServiceImpl implements PlayerService {
 
     @Override
     public List<Player> findAllPlayers() {
-        List<Player> players = playerRepository.findAll();
+        List<Player> players = findPlayersWithoutStats();
+        applyStats(players, loadStats());
+        return players;
+    }
+
+    @Override
+    public List<Player> findPlayersWithoutStats() {
+        return playerRepository.findAllWithoutStats();
+    }
 
-        PlayerStatsService statsService = new PlayerStatsService();
+    @Override
+    public Map<Long, PlayerStats> loadStats() {
+        tournamentWriteBehind.flush();
+        long start = System.nanoTime();
+        Map<Long, PlayerStats> statsByPlayer = playerRepository.findAllStats();
+
+        Runtime runtime = Runtime.getRuntime();
+        log.info("Загружена статистика игроков: {} за {} мс, занято памяти: {} МБ",
+                statsByPlayer.size(),
+                (System.nanoTime() - start) / 1_000_000,
+                (runtime.totalMemory() - runtime.freeMemory()) / (1024 * 1024));
+        return statsByPlayer;
+    }
 
+    @Override
+    public void applyStats(List<Player> players, Map<Long, PlayerStats> statsByPlayer) {
         for (Player player : players) {
-            if (player.getTournamentList() != null) {
-                player.setStats(statsService.calculate(player));
-            }
+            player.setStats(statsByPlayer.getOrDefault(player.getId(), new PlayerStats()));
         }
-
-        return players;
+        leaderboardService.rebuild(players);
     }
 
     @Override
     public void deletePlayer(Player player) {
+        tournamentWriteBehind.flush();
         playerRepository.delete(player);
+        headToHeadService.playerRemoved(player.getId());
+        ratingChartService.invalidate(player.getId());
+        leaderboardService.playerRemoved(player.getId());
+        windowStatsService.invalidate(player.getId());
     }
 }
\ No newline at end of file
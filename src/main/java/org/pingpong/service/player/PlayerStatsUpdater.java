@@ -0,0 +1,268 @@
+package org.pingpong.service.player;
+
+import org.pingpong.model.Game;
+import org.pingpong.model.Player;
+import org.pingpong.model.PlayerStats;
+import org.pingpong.model.Tournament;
+import org.pingpong.repository.PlayerRepository;
+import org.pingpong.repository.TournamentChangeListener;
+import org.pingpong.service.StatsAccumulator;
+import org.pingpong.service.leaderboard.LeaderboardService;
+import org.pingpong.service.window.WindowStatsService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Поддерживает статистику игрока в таблице после синхронизации и удаления игр без перезагрузки
+ * всех игроков: к текущей статистике прибавляется только вклад изменившихся турниров и игр.
+ * Разница считается в фоне ({@link #prepareSync}), а в объект игрока записывается в потоке JavaFX
+ * ({@link #apply}).
+ * Новая статистика сразу переставляет игрока в таблицах лидеров, его суммы за периоды сбрасываются.
+ * <p>
+ * С {@code -Dpingpong.stats.verify=true} результат каждый раз сверяется с агрегатами БД,
+ * расхождение пишется в лог и исправляется. Разовая сверка всей базы — {@link #verifyAll()}.
+ */
+@Service
+public class PlayerStatsUpdater {
+
+    private static final Logger log = LoggerFactory.getLogger(PlayerStatsUpdater.class);
+    private static final boolean VERIFY = Boolean.getBoolean("pingpong.stats.verify");
+
+    private final PlayerRepository playerRepository;
+    private final LeaderboardService leaderboardService;
+    private final WindowStatsService windowStatsService;
+
+    public PlayerStatsUpdater(PlayerRepository playerRepository, LeaderboardService leaderboardService,
+                              WindowStatsService windowStatsService) {
+        this.playerRepository = playerRepository;
+        this.leaderboardService = leaderboardService;
+        this.windowStatsService = windowStatsService;
+    }
+
+    public ChangeTracker newTracker() {
+        return new ChangeTracker();
+    }
+
+    /**
+     * Изменение статистики игрока, подготовленное в фоне: либо статистика целиком ({@code replacement}),
+     * либо разница счётчиков и, если её пришлось взять из БД, дата последнего турнира.
+     */
+    public record StatsChange(PlayerStats replacement, PlayerStats delta, LocalDate lastGameDate) {
+    }
+
+    /**
+     * Готовит изменения, накопленные за успешную синхронизацию; игрок не меняется, поэтому вызывается
+     * из фонового потока. Если статистики у игрока ещё нет ({@code current == null}) или турниры
+     * удалялись массово, она берётся из БД целиком. К игроку изменение применяет {@link #apply}.
+     */
+    public StatsChange prepareSync(Long playerId, PlayerStats current, ChangeTracker tracker) {
+        windowStatsService.invalidate(playerId);
+        if (current == null || tracker.reset) {
+            return new StatsChange(playerRepository.findStats(playerId), null, null);
+        }
+        // Дата — максимум: если изменён или удалён турнир, её даст только БД
+        LocalDate last = tracker.lastRemoved != null ? playerRepository.findLastTournamentDate(playerId) : null;
+        StatsChange change = new StatsChange(null, tracker.delta.getStats(), last);
+        if (VERIFY) {
+            PlayerStats expected = playerRepository.findStats(playerId);
+            PlayerStats applied = copyOf(current);
+            applyTo(applied, change);
+            if (!expected.equals(applied)) {
+                log.warn("Статистика игрока ID={} разошлась с БД: {} вместо {}", playerId, applied, expected);
+                return new StatsChange(expected, null, null);
+            }
+        }
+        return change;
+    }
+
+    /**
+     * Применяет подготовленное изменение к игроку и переставляет его в таблицах лидеров.
+     * Для игрока, показанного в таблице, — только из потока JavaFX.
+     */
+    public void apply(Player player, StatsChange change) {
+        if (change.replacement() != null) {
+            player.setStats(change.replacement());
+        } else {
+            applyTo(player.getStats(), change);
+        }
+        leaderboardService.update(player);
+    }
+
+    private static void applyTo(PlayerStats stats, StatsChange change) {
+        new StatsAccumulator(stats).add(change.delta());
+        LocalDate added = change.delta().getLastGameDate();
+        if (change.lastGameDate() != null) {
+            stats.setLastGameDate(change.lastGameDate());
+        } else if (added != null && (stats.getLastGameDate() == null || added.isAfter(stats.getLastGameDate()))) {
+            stats.setLastGameDate(added);
+        }
+    }
+
+    /**
+     * Переносит в статистику игрока правку даты и места турнира: вклад турнира со старыми значениями
+     * вычитается, с новыми — прибавляется (игры не меняются и в расчёт не берутся). Вызывается из
+     * потока JavaFX. Возвращает true, если дата последнего турнира могла уменьшиться — её тогда даёт
+     * только БД после записи правки ({@link #prepareLastGameDate}).
+     */
+    public boolean tournamentEdited(Player player, Tournament tournament, LocalDate oldDate, Integer oldPlace) {
+        if (player == null || !player.hasStats()) return false;
+        windowStatsService.invalidate(player.getId());
+        StatsAccumulator accumulator = new StatsAccumulator(player.getStats());
+        accumulator.reverse(withoutGames(tournament, oldDate, oldPlace));
+        accumulator.apply(withoutGames(tournament, tournament.getDate(), tournament.getPlace()));
+        leaderboardService.update(player);
+
+        LocalDate last = player.getStats().getLastGameDate();
+        return oldDate != null && oldDate.equals(last) && tournament.getDate() != null && tournament.getDate().isBefore(oldDate);
+    }
+
+    /**
+     * Дата последнего турнира игрока из БД как изменение статистики; отложенные правки турниров
+     * к этому моменту должны быть записаны. Вызывается из фонового потока.
+     */
+    public StatsChange prepareLastGameDate(Long playerId) {
+        return new StatsChange(null, new PlayerStats(), playerRepository.findLastTournamentDate(playerId));
+    }
+
+    /**
+     * Вычитает удалённую игру из статистики игрока.
+     */
+    public void gameRemoved(Player player, Tournament tournament, Game game) {
+        if (player == null || !player.hasStats()) return;
+        windowStatsService.invalidate(player.getId());
+        new StatsAccumulator(player.getStats()).reverseGame(tournament, game);
+        verify(player);
+        leaderboardService.update(player);
+    }
+
+    /**
+     * Итог сверки: игроков проверено, из них с расхождениями.
+     */
+    public record VerifyReport(int players, int mismatches) {
+        @Override
+        public String toString() {
+            return String.format("проверено игроков %d, расхождений %d", players, mismatches);
+        }
+    }
+
+    /**
+     * Сверяет инкрементальный расчёт с агрегатами БД по всем игрокам: все турниры, добавленные
+     * через {@link StatsAccumulator#apply} к пустой статистике, должны дать статистику из БД;
+     * вычитание всех турниров — обнулить её, а вычитание всех игр через
+     * {@link StatsAccumulator#reverseGame} — обнулить только победы и поражения.
+     * Каждое расхождение пишется в лог.
+     */
+    public VerifyReport verifyAll() {
+        long start = System.nanoTime();
+        Map<Long, PlayerStats> expectedByPlayer = playerRepository.findAllStats();
+        List<Player> players = playerRepository.findAll();
+
+        int mismatches = 0;
+        for (Player player : players) {
+            PlayerStats expected = expectedByPlayer.getOrDefault(player.getId(), new PlayerStats());
+            List<Tournament> tournaments = player.getTournamentList() != null ? player.getTournamentList() : List.of();
+
+            StatsAccumulator replayed = new StatsAccumulator(new PlayerStats());
+            StatsAccumulator reversed = new StatsAccumulator(copyOf(expected));
+            StatsAccumulator gamesReversed = new StatsAccumulator(copyOf(expected));
+            for (Tournament tournament : tournaments) {
+                replayed.apply(tournament);
+                reversed.reverse(tournament);
+                if (tournament.getGames() != null) {
+                    for (Game game : tournament.getGames()) {
+                        gamesReversed.reverseGame(tournament, game);
+                    }
+                }
+            }
+            if (!tournaments.isEmpty() && replayed.getStats().getLastGameDate() == null) {
+                replayed.getStats().setLastGameDate(LocalDate.MIN);
+            }
+
+            PlayerStats noGames = copyOf(expected);
+            noGames.setTotalWins(0);
+            noGames.setTotalLosses(0);
+            noGames.setRttfWins(0);
+            noGames.setRttfLosses(0);
+            noGames.setTtwWins(0);
+            noGames.setTtwLosses(0);
+            reversed.getStats().setLastGameDate(null);
+
+            boolean ok = true;
+            if (!expected.equals(replayed.getStats())) {
+                log.warn("Сверка {}: сумма турниров {} вместо {}", player.getFio(), replayed.getStats(), expected);
+                ok = false;
+            }
+            if (!new PlayerStats().equals(reversed.getStats())) {
+                log.warn("Сверка {}: после вычитания всех турниров осталось {}", player.getFio(), reversed.getStats());
+                ok = false;
+            }
+            if (!noGames.equals(gamesReversed.getStats())) {
+                log.warn("Сверка {}: после вычитания всех игр {} вместо {}", player.getFio(), gamesReversed.getStats(), noGames);
+                ok = false;
+            }
+            if (!ok) mismatches++;
+        }
+
+        VerifyReport report = new VerifyReport(players.size(), mismatches);
+        log.info("Сверка статистики с БД: {} за {} мс", report, (System.nanoTime() - start) / 1_000_000);
+        return report;
+    }
+
+    private static Tournament withoutGames(Tournament tournament, LocalDate date, Integer place) {
+        return Tournament.builder()
+                .date(date)
+                .place(place)
+                .rttfName(tournament.getRttfName())
+                .ttwName(tournament.getTtwName())
+                .build();
+    }
+
+    private static PlayerStats copyOf(PlayerStats source) {
+        PlayerStats copy = new PlayerStats();
+        new StatsAccumulator(copy).add(source);
+        copy.setLastGameDate(source.getLastGameDate());
+        return copy;
+    }
+
+    private void verify(Player player) {
+        if (!VERIFY) return;
+        PlayerStats expected = playerRepository.findStats(player.getId());
+        if (!expected.equals(player.getStats())) {
+            log.warn("Статистика игрока {} разошлась с БД: {} вместо {}", player.getFio(), player.getStats(), expected);
+            player.setStats(expected);
+        }
+    }
+
+    /**
+     * Копит разницу статистики в ходе синхронизации; к игроку она применяется только после commit.
+     */
+    public static class ChangeTracker implements TournamentChangeListener {
+        private final StatsAccumulator delta = new StatsAccumulator(new PlayerStats());
+        private LocalDate lastRemoved;
+        private boolean reset;
+
+        @Override
+        public void removed(Tournament tournament) {
+            delta.reverse(tournament);
+            LocalDate date = tournament.getDate();
+            if (date != null && (lastRemoved == null || date.isAfter(lastRemoved))) {
+                lastRemoved = date;
+            }
+        }
+
+        @Override
+        public void added(Tournament tournament) {
+            delta.apply(tournament);
+        }
+
+        @Override
+        public void reset() {
+            reset = true;
+        }
+    }
+}
@@ -1,8 +1,8 @@
 package org.pingpong.service.player.parser;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.pingpong.NameDictionary;
 import org.pingpong.SiteConfig;
-import org.pingpong.Utils;
 import org.pingpong.model.Game;
 import org.pingpong.model.Player;
 import org.pingpong.model.Tournament;
@@ -102,7 +102,7 @@ public class RttfPlayerParser extends AbstractPlayerParser {
         List<Game> games = new ArrayList<>();
         int order = 1;
         for (Element match : matches) {
-            String opponentName = Utils.shortenFio(getOpponentFio(match));
+            String opponentName = NameDictionary.canonical(getOpponentFio(match));
             if (!opponentName.isEmpty()) {
                 Game game = getMatchData(match)
                         .withOpponentName(opponentName)
@@ -1,7 +1,7 @@
 package org.pingpong.service.player.parser;
 
+import org.pingpong.NameDictionary;
 import org.pingpong.SiteConfig;
-import org.pingpong.Utils;
 import org.pingpong.model.Game;
 import org.pingpong.model.Player;
 import org.pingpong.model.Tournament;
@@ -14,7 +14,9 @@ import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -130,7 +132,7 @@ public class TtwPlayerParser extends AbstractPlayerParser {
         String fullName = "";
         long rating = 0;
         if (matcher.matches()) {
-            fullName = Utils.shortenFio(matcher.group(1).trim());
+            fullName = NameDictionary.canonical(matcher.group(1).trim());
             rating = Math.round(Double.parseDouble(matcher.group(2)));
         }
 
@@ -147,22 +149,26 @@ public class TtwPlayerParser extends AbstractPlayerParser {
                 .build();
     }
 
-    public static Integer getTournamentPlace(Tournament tournament, String fio) throws IOException {
-        String shortenedFio = Utils.shortenFio(fio);
-        Document doc = configTour.connect(tournament.getTtwId()).get();
+    /**
+     * Итоговые места всех участников турнира: каноническое имя → место. При совпадении
+     * сокращённых имён остаётся первое по таблице; строки без числового места пропускаются.
+     */
+    public static Map<String, Integer> parseTournamentPlaces(String ttwId) throws IOException {
+        Map<String, Integer> places = new LinkedHashMap<>();
+        Document doc = configTour.connect(ttwId).get();
         Element tbody = doc.selectFirst("div.tournament-players > table > tbody");
-        if (tbody == null) return 0;
+        if (tbody == null) return places;
 
         for (Element row : tbody.select("tr")) {
             Elements cells = row.select("td");
             if (cells.size() >= 2) {
-                String placeStr = cells.get(0).text();
+                String placeStr = cells.get(0).text().trim();
                 String fullName = cells.get(1).select("a").text();
-                if (Utils.shortenFio(fullName).equals(shortenedFio)) {
-                    return Integer.valueOf(placeStr);
+                if (placeStr.matches("\\d+")) {
+                    places.putIfAbsent(NameDictionary.canonical(fullName), Integer.valueOf(placeStr));
                 }
             }
         }
-        return 0;
+        return places;
     }
 }
\ No newline at end of file
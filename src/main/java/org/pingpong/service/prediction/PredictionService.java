@@ -0,0 +1,429 @@
+package org.pingpong.service.prediction;
+
+import org.pingpong.model.Game;
+import org.pingpong.model.Player;
+import org.pingpong.model.Tournament;
+import org.pingpong.repository.PredictionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Прогноз исхода игры по разнице рейтингов, отдельно для RTTF и TTW.
+ * <p>
+ * Рейтинг игрока перед турниром восстанавливается от текущего вычитанием дельт турниров
+ * (как в графике рейтинга), рейтинг соперника берётся из игры. По всем сохранённым играм
+ * подбираются логистическая модель вероятности победы и линейные зависимости дельты
+ * от разницы рейтингов для побед и поражений. Выборка хранится в примитивных массивах,
+ * суммы для подбора считаются параллельно по кускам.
+ */
+@Service
+public class PredictionService {
+
+    private static final Logger log = LoggerFactory.getLogger(PredictionService.class);
+
+    // Разница рейтингов делится на масштаб, чтобы коэффициенты были порядка единицы
+    private static final double SCALE = 100.0;
+    private static final int CHUNK = 16 * 1024;
+    private static final int MAX_ITERATIONS = 50;
+    private static final double EPSILON = 1e-9;
+
+    public enum Source {RTTF, TTW}
+
+    private final PredictionRepository repository;
+
+    // По индексу Source; null — выборка ещё не загружена или сброшена
+    private Samples[] samples;
+    private Model[] models;
+
+    public PredictionService(PredictionRepository repository) {
+        this.repository = repository;
+    }
+
+    /**
+     * Вероятность победы и ожидаемая дельта игрока с рейтингом {@code playerRating}
+     * против соперника с рейтингом {@code opponentRating}.
+     */
+    public Prediction predict(Source source, double playerRating, double opponentRating) {
+        return model(source).predict((playerRating - opponentRating) / SCALE);
+    }
+
+    /**
+     * Прогноз для игр турнира игрока; рейтинг игрока — на момент перед турниром.
+     * Элементы соответствуют играм по порядку.
+     */
+    public List<GamePrediction> predictGames(Player player, Tournament tournament, List<Game> games) {
+        double rttfBefore = Double.NaN;
+        double ttwBefore = Double.NaN;
+        if (player.getId() != null && tournament.getDate() != null) {
+            BigDecimal[] since = repository.sumDeltasSince(player.getId(), tournament.getDate());
+            rttfBefore = ratingBefore(player.getRttfRating(), since[0]);
+            ttwBefore = ratingBefore(player.getTtwRating(), since[1]);
+        }
+
+        List<GamePrediction> result = new ArrayList<>(games.size());
+        for (Game game : games) {
+            result.add(new GamePrediction(
+                    predictOrNull(Source.RTTF, rttfBefore, game.getOpponentRttfRating()),
+                    predictOrNull(Source.TTW, ttwBefore, game.getOpponentTtwRating())));
+        }
+        return result;
+    }
+
+    /**
+     * Проверка на истории: модель подбирается по играм до {@code cutoff} и оценивается на остальных.
+     */
+    public BacktestReport backtest(Source source, LocalDate cutoff) {
+        Samples data = samples()[source.ordinal()];
+        int split = data.indexOfDay((int) cutoff.toEpochDay());
+        if (split == 0 || split == data.size) {
+            throw new IllegalArgumentException("Нет игр по одну из сторон даты " + cutoff);
+        }
+
+        Model model = fit(data, 0, split);
+        double baseRate = clamp(model.trainWinRate());
+        double meanDelta = model.trainMeanDelta();
+
+        double[] totals = parallelSums(split, data.size, 7, (from, to, acc) -> {
+            for (int i = from; i < to; i++) {
+                double p = clamp(model.winProbability(data.diff[i]));
+                double y = data.win[i] ? 1 : 0;
+                acc[0] -= y * Math.log(p) + (1 - y) * Math.log(1 - p);
+                acc[1] -= y * Math.log(baseRate) + (1 - y) * Math.log(1 - baseRate);
+                acc[2] += (p - y) * (p - y);
+                if ((p >= 0.5) == data.win[i]) acc[3]++;
+                double delta = data.delta[i];
+                if (!Double.isNaN(delta)) {
+                    acc[4] += Math.abs(model.predict(data.diff[i]).expectedDelta() - delta);
+                    acc[5] += Math.abs(meanDelta - delta);
+                    acc[6]++;
+                }
+            }
+        });
+
+        int tested = data.size - split;
+        return new BacktestReport(source, cutoff, split, tested,
+                totals[0] / tested, totals[1] / tested, totals[2] / tested, totals[3] / tested,
+                totals[6] > 0 ? totals[4] / totals[6] : Double.NaN,
+                totals[6] > 0 ? totals[5] / totals[6] : Double.NaN);
+    }
+
+    /**
+     * Сбрасывает выборку и модели; они пересчитаются при следующем обращении.
+     */
+    public synchronized void invalidate() {
+        samples = null;
+        models = null;
+    }
+
+    private Prediction predictOrNull(Source source, double playerRating, Integer opponentRating) {
+        if (Double.isNaN(playerRating) || opponentRating == null || opponentRating <= 0) return null;
+        return predict(source, playerRating, opponentRating);
+    }
+
+    private synchronized Model model(Source source) {
+        if (models == null) {
+            Samples[] data = samples();
+            Model[] fitted = new Model[data.length];
+            for (Source s : Source.values()) {
+                fitted[s.ordinal()] = fit(data[s.ordinal()], 0, data[s.ordinal()].size);
+                log.info("Модель прогноза {}: {}", s, fitted[s.ordinal()]);
+            }
+            models = fitted;
+        }
+        return models[source.ordinal()];
+    }
+
+    private synchronized Samples[] samples() {
+        if (samples == null) {
+            long start = System.nanoTime();
+            samples = loadSamples();
+            log.info("Выборка для прогноза: RTTF {} игр, TTW {} игр, {} мс",
+                    samples[0].size, samples[1].size, (System.nanoTime() - start) / 1_000_000);
+        }
+        return samples;
+    }
+
+    private Samples[] loadSamples() {
+        Map<Long, double[]> current = new HashMap<>();
+        for (Object[] row : repository.findPlayerRatings()) {
+            current.put((Long) row[0], new double[]{rating((Integer) row[1]), rating((Integer) row[2])});
+        }
+
+        List<Object[]> rows = repository.findTournamentGames();
+        Samples rttf = new Samples(rows.size());
+        Samples ttw = new Samples(rows.size());
+
+        // Строки идут по игрокам и от новых дат к старым: рейтинг «откатывается» назад по группам одной даты
+        Long playerId = null;
+        double rttfRating = Double.NaN;
+        double ttwRating = Double.NaN;
+        int from = 0;
+        while (from < rows.size()) {
+            Object[] first = rows.get(from);
+            if (!first[0].equals(playerId)) {
+                playerId = (Long) first[0];
+                double[] ratings = current.getOrDefault(playerId, new double[]{Double.NaN, Double.NaN});
+                rttfRating = ratings[0];
+                ttwRating = ratings[1];
+            }
+            LocalDate date = (LocalDate) first[1];
+            int to = from;
+            double rttfSum = 0;
+            double ttwSum = 0;
+            Object lastTournament = null;
+            while (to < rows.size() && rows.get(to)[0].equals(playerId) && rows.get(to)[1].equals(date)) {
+                Object[] row = rows.get(to);
+                if (!row[2].equals(lastTournament)) {
+                    lastTournament = row[2];
+                    rttfSum += value(row[3]);
+                    ttwSum += value(row[4]);
+                }
+                to++;
+            }
+            rttfRating -= rttfSum;
+            ttwRating -= ttwSum;
+
+            int day = (int) date.toEpochDay();
+            for (int i = from; i < to; i++) {
+                Object[] row = rows.get(i);
+                rttf.add(rttfRating, (Integer) row[5], (Integer) row[7], (Integer) row[8], row[9], day);
+                ttw.add(ttwRating, (Integer) row[6], (Integer) row[7], (Integer) row[8], row[10], day);
+            }
+            from = to;
+        }
+
+        rttf.sortByDay();
+        ttw.sortByDay();
+        return new Samples[]{rttf, ttw};
+    }
+
+    /**
+     * Логистическая регрессия методом Ньютона и две прямые дельты (для побед и поражений)
+     * по образцам [from, to).
+     */
+    private static Model fit(Samples data, int from, int to) {
+        double a = 0;
+        double b = 0;
+        for (int iteration = 0; iteration < MAX_ITERATIONS; iteration++) {
+            double ca = a;
+            double cb = b;
+            double[] s = parallelSums(from, to, 5, (lo, hi, acc) -> {
+                for (int i = lo; i < hi; i++) {
+                    double x = data.diff[i];
+                    double p = 1 / (1 + Math.exp(-(ca + cb * x)));
+                    double residual = (data.win[i] ? 1 : 0) - p;
+                    double w = p * (1 - p);
+                    acc[0] += residual;
+                    acc[1] += residual * x;
+                    acc[2] += w;
+                    acc[3] += w * x;
+                    acc[4] += w * x * x;
+                }
+            });
+            // Небольшая регуляризация не даёт матрице выродиться на малых выборках
+            double h00 = s[2] + 1e-6;
+            double h01 = s[3];
+            double h11 = s[4] + 1e-6;
+            double det = h00 * h11 - h01 * h01;
+            if (det <= 0) break;
+            double da = (h11 * s[0] - h01 * s[1]) / det;
+            double db = (h00 * s[1] - h01 * s[0]) / det;
+            a += da;
+            b += db;
+            if (Math.abs(da) + Math.abs(db) < EPSILON) break;
+        }
+
+        // n, Σx, Σx², Σy, Σxy для побед (0..4) и поражений (5..9), число побед (10)
+        double[] s = parallelSums(from, to, 11, (lo, hi, acc) -> {
+            for (int i = lo; i < hi; i++) {
+                int base = data.win[i] ? 0 : 5;
+                if (data.win[i]) acc[10]++;
+                double y = data.delta[i];
+                if (Double.isNaN(y)) continue;
+                double x = data.diff[i];
+                acc[base]++;
+                acc[base + 1] += x;
+                acc[base + 2] += x * x;
+                acc[base + 3] += y;
+                acc[base + 4] += x * y;
+            }
+        });
+
+        int n = to - from;
+        return new Model(a, b, Line.fit(s, 0), Line.fit(s, 5), n, n > 0 ? s[10] / n : 0.5,
+                s[0] + s[5] > 0 ? (s[3] + s[8]) / (s[0] + s[5]) : 0);
+    }
+
+    @FunctionalInterface
+    private interface ChunkSum {
+        void accumulate(int from, int to, double[] acc);
+    }
+
+    /**
+     * Делит [from, to) на куски, считает суммы кусков параллельно и складывает их.
+     */
+    private static double[] parallelSums(int from, int to, int width, ChunkSum chunkSum) {
+        int chunks = Math.max(1, (to - from + CHUNK - 1) / CHUNK);
+        return IntStream.range(0, chunks).parallel()
+                .mapToObj(c -> {
+                    double[] acc = new double[width];
+                    int lo = from + c * CHUNK;
+                    chunkSum.accumulate(lo, Math.min(to, lo + CHUNK), acc);
+                    return acc;
+                })
+                .reduce(new double[width], (x, y) -> {
+                    double[] sum = new double[width];
+                    for (int i = 0; i < width; i++) sum[i] = x[i] + y[i];
+                    return sum;
+                });
+    }
+
+    private static double ratingBefore(Integer current, BigDecimal deltasSince) {
+        double rating = rating(current);
+        return Double.isNaN(rating) ? rating : rating - deltasSince.doubleValue();
+    }
+
+    private static double rating(Integer value) {
+        return value != null && value > 0 ? value : Double.NaN;
+    }
+
+    private static double value(Object decimal) {
+        return decimal != null ? ((BigDecimal) decimal).doubleValue() : 0;
+    }
+
+    private static double clamp(double p) {
+        return Math.min(1 - 1e-12, Math.max(1e-12, p));
+    }
+
+    /**
+     * Образцы одного источника: разница рейтингов (в сотнях), исход, дельта игры (NaN — нет) и день.
+     */
+    private static final class Samples {
+        double[] diff;
+        boolean[] win;
+        double[] delta;
+        int[] day;
+        int size;
+
+        Samples(int capacity) {
+            diff = new double[capacity];
+            win = new boolean[capacity];
+            delta = new double[capacity];
+            day = new int[capacity];
+        }
+
+        void add(double playerRating, Integer opponentRating, Integer score, Integer opponentScore,
+                 Object gameDelta, int gameDay) {
+            if (Double.isNaN(playerRating) || opponentRating == null || opponentRating <= 0) return;
+            // Ничьи и игры без счёта ничего не говорят об исходе
+            if (score == null || opponentScore == null || score.equals(opponentScore)) return;
+            diff[size] = (playerRating - opponentRating) / SCALE;
+            win[size] = score > opponentScore;
+            delta[size] = gameDelta != null ? ((BigDecimal) gameDelta).doubleValue() : Double.NaN;
+            day[size] = gameDay;
+            size++;
+        }
+
+        /**
+         * Упорядочивает образцы по дню (для разделения истории при проверке).
+         */
+        void sortByDay() {
+            long[] keys = new long[size];
+            for (int i = 0; i < size; i++) {
+                keys[i] = ((long) day[i] << 32) | i;
+            }
+            Arrays.sort(keys);
+            double[] sortedDiff = new double[size];
+            boolean[] sortedWin = new boolean[size];
+            double[] sortedDelta = new double[size];
+            int[] sortedDay = new int[size];
+            for (int i = 0; i < size; i++) {
+                int j = (int) keys[i];
+                sortedDiff[i] = diff[j];
+                sortedWin[i] = win[j];
+                sortedDelta[i] = delta[j];
+                sortedDay[i] = day[j];
+            }
+            diff = sortedDiff;
+            win = sortedWin;
+            delta = sortedDelta;
+            day = sortedDay;
+        }
+
+        /**
+         * Индекс первого образца с днём не раньше {@code target}.
+         */
+        int indexOfDay(int target) {
+            int lo = 0;
+            int hi = size;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (day[mid] < target) lo = mid + 1;
+                else hi = mid;
+            }
+            return lo;
+        }
+    }
+
+    private record Line(double intercept, double slope) {
+        static Line fit(double[] s, int base) {
+            double n = s[base];
+            if (n == 0) return new Line(0, 0);
+            double denominator = n * s[base + 2] - s[base + 1] * s[base + 1];
+            if (n < 2 || Math.abs(denominator) < EPSILON) return new Line(s[base + 3] / n, 0);
+            double slope = (n * s[base + 4] - s[base + 1] * s[base + 3]) / denominator;
+            return new Line((s[base + 3] - slope * s[base + 1]) / n, slope);
+        }
+
+        double at(double x) {
+            return intercept + slope * x;
+        }
+    }
+
+    private record Model(double a, double b, Line win, Line loss, int samples,
+                         double trainWinRate, double trainMeanDelta) {
+        double winProbability(double x) {
+            return 1 / (1 + Math.exp(-(a + b * x)));
+        }
+
+        Prediction predict(double x) {
+            double p = winProbability(x);
+            return new Prediction(p, p * win.at(x) + (1 - p) * loss.at(x));
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d игр, P(победы) = 1/(1+e^-(%.3f%+.3f·Δ/100)), " +
+                            "дельта: победа %.2f%+.3f·Δ/100, поражение %.2f%+.3f·Δ/100",
+                    samples, a, b, win.intercept(), win.slope(), loss.intercept(), loss.slope());
+        }
+    }
+
+    public record Prediction(double winProbability, double expectedDelta) {
+    }
+
+    public record GamePrediction(Prediction rttf, Prediction ttw) {
+    }
+
+    public record BacktestReport(Source source, LocalDate cutoff, int trainGames, int testGames,
+                                 double logLoss, double baselineLogLoss, double brier, double accuracy,
+                                 double deltaMae, double baselineDeltaMae) {
+        @Override
+        public String toString() {
+            return String.format("%s c %s: обучение %d игр, проверка %d игр; log-loss %.4f (база %.4f), " +
+                            "Брайер %.4f, точность %.1f%%, ошибка дельты %.2f (база %.2f)",
+                    source, cutoff, trainGames, testGames, logLoss, baselineLogLoss, brier, accuracy * 100,
+                    deltaMae, baselineDeltaMae);
+        }
+    }
+}
@@ -1,11 +1,17 @@
 package org.pingpong.service.tournament;
 
 import org.pingpong.model.Tournament;
+import org.pingpong.repository.TournamentRepository.PageCursor;
+import org.pingpong.repository.TournamentRepository.SortField;
+import org.pingpong.repository.TournamentRepository.TournamentPage;
 
 import java.util.List;
 
 public interface TournamentService {
     List<Tournament> findByPlayerId(Long playerId);
-    void update(Tournament tournament);
+    TournamentPage findPage(Long playerId, boolean medalsOnly, SortField sortField, boolean ascending,
+                            PageCursor after, int limit);
+    long countByPlayerId(Long playerId, boolean medalsOnly);
+    List<Tournament> findTtwWithoutPlace(Long playerId);
     void delete(Tournament tournament);
 }
\ No newline at end of file
@@ -2,27 +2,51 @@ package org.pingpong.service.tournament;
 
 import org.pingpong.model.Tournament;
 import org.pingpong.repository.TournamentRepository;
+import org.pingpong.repository.TournamentRepository.PageCursor;
+import org.pingpong.repository.TournamentRepository.SortField;
+import org.pingpong.repository.TournamentRepository.TournamentPage;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
 
+/**
+ * Чтение турниров игрока. Правки дат и мест копятся в TournamentWriteBehind, поэтому каждое
+ * чтение сначала отправляет их в БД — иначе страница таблицы вернула бы прежние значения.
+ */
 @Service
 public class TournamentServiceImpl implements TournamentService {
 
     private final TournamentRepository tournamentRepository;
+    private final TournamentWriteBehind tournamentWriteBehind;
 
-    public TournamentServiceImpl(TournamentRepository tournamentRepository) {
+    public TournamentServiceImpl(TournamentRepository tournamentRepository, TournamentWriteBehind tournamentWriteBehind) {
         this.tournamentRepository = tournamentRepository;
+        this.tournamentWriteBehind = tournamentWriteBehind;
     }
 
     @Override
     public List<Tournament> findByPlayerId(Long playerId) {
+        tournamentWriteBehind.flush();
         return tournamentRepository.findByPlayerId(playerId);
     }
 
     @Override
-    public void update(Tournament tournament) {
-        tournamentRepository.update(tournament);
+    public TournamentPage findPage(Long playerId, boolean medalsOnly, SortField sortField, boolean ascending,
+                                   PageCursor after, int limit) {
+        tournamentWriteBehind.flush();
+        return tournamentRepository.findPageByPlayerId(playerId, medalsOnly, sortField, ascending, after, limit);
+    }
+
+    @Override
+    public long countByPlayerId(Long playerId, boolean medalsOnly) {
+        tournamentWriteBehind.flush();
+        return tournamentRepository.countByPlayerId(playerId, medalsOnly);
+    }
+
+    @Override
+    public List<Tournament> findTtwWithoutPlace(Long playerId) {
+        tournamentWriteBehind.flush();
+        return tournamentRepository.findTtwWithoutPlace(playerId);
     }
 
     @Override
@@ -0,0 +1,146 @@
+package org.pingpong.service.tournament;
+
+import jakarta.annotation.PreDestroy;
+import org.pingpong.repository.TournamentRepository;
+import org.pingpong.repository.TournamentRepository.TournamentEdit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Отложенная запись правок турниров (ручное редактирование, дозаполнение мест TTW).
+ * Правки копятся в памяти, повторные правки одного турнира сливаются, а в БД уходят
+ * пачкой массовых UPDATE в одной транзакции: по таймеру, при переполнении очереди,
+ * по явному {@link #flush()} и обязательно при остановке контекста.
+ * <p>
+ * Интервал сброса задаётся -Dpingpong.writeBehind.flushMs (по умолчанию 2000 мс).
+ */
+@Service
+public class TournamentWriteBehind {
+
+    public static final String FLUSH_INTERVAL_PROPERTY = "pingpong.writeBehind.flushMs";
+    private static final long DEFAULT_FLUSH_INTERVAL_MS = 2000;
+    private static final int MAX_PENDING = 500;
+
+    private static final Logger log = LoggerFactory.getLogger(TournamentWriteBehind.class);
+
+    private final TournamentRepository tournamentRepository;
+    private final Map<Long, TournamentEdit> pending = new LinkedHashMap<>();
+    private final List<Consumer<List<TournamentEdit>>> flushListeners = new CopyOnWriteArrayList<>();
+    // Сброс по таймеру и явный сброс не должны писать одну пачку дважды или вперемешку
+    private final Object flushLock = new Object();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "tournament-write-behind");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public TournamentWriteBehind(TournamentRepository tournamentRepository) {
+        this.tournamentRepository = tournamentRepository;
+        long interval = Math.max(1, Long.getLong(FLUSH_INTERVAL_PROPERTY, DEFAULT_FLUSH_INTERVAL_MS));
+        scheduler.scheduleWithFixedDelay(this::flushQuietly, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    public void updatePlace(Long tournamentId, Integer place) {
+        enqueue(new TournamentEdit(tournamentId, null, place));
+    }
+
+    public void updateDateAndPlace(Long tournamentId, LocalDate date, Integer place) {
+        enqueue(new TournamentEdit(tournamentId, date, place));
+    }
+
+    /**
+     * Слушатель получает каждую успешно записанную пачку правок (например, чтобы сбросить кэши).
+     */
+    public void addFlushListener(Consumer<List<TournamentEdit>> listener) {
+        flushListeners.add(listener);
+    }
+
+    public int pendingCount() {
+        synchronized (pending) {
+            return pending.size();
+        }
+    }
+
+    /**
+     * Записывает всё накопленное и возвращает число обновлённых строк. Вызывается перед чтением,
+     * которое должно видеть правки, и перед операциями, перезаписывающими турниры.
+     */
+    public int flush() {
+        synchronized (flushLock) {
+            List<TournamentEdit> batch;
+            synchronized (pending) {
+                if (pending.isEmpty()) return 0;
+                batch = new ArrayList<>(pending.values());
+                pending.clear();
+            }
+
+            long start = System.nanoTime();
+            int updated;
+            try {
+                updated = tournamentRepository.applyEdits(batch);
+                log.info("Отложенная запись турниров: правок {}, строк {}, {} мс",
+                        batch.size(), updated, (System.nanoTime() - start) / 1_000_000);
+            } catch (RuntimeException e) {
+                // Пачка возвращается в очередь под более поздние правки тех же турниров
+                synchronized (pending) {
+                    Map<Long, TournamentEdit> newer = new LinkedHashMap<>(pending);
+                    pending.clear();
+                    batch.forEach(edit -> pending.put(edit.id(), edit));
+                    newer.values().forEach(this::merge);
+                }
+                throw e;
+            }
+            flushListeners.forEach(listener -> listener.accept(batch));
+            return updated;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+
+    private void enqueue(TournamentEdit edit) {
+        if (edit.id() == null) {
+            throw new IllegalArgumentException("Турнир или его ID не может быть null");
+        }
+        boolean full;
+        synchronized (pending) {
+            merge(edit);
+            full = pending.size() >= MAX_PENDING;
+        }
+        if (full && !scheduler.isShutdown()) {
+            scheduler.execute(this::flushQuietly);
+        }
+    }
+
+    private void merge(TournamentEdit edit) {
+        pending.merge(edit.id(), edit, TournamentEdit::then);
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.error("Ошибка отложенной записи турниров, правки будут записаны повторно: {}", e.getMessage(), e);
+        }
+    }
+}
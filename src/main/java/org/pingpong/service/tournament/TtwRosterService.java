@@ -0,0 +1,102 @@
+package org.pingpong.service.tournament;
+
+import org.pingpong.NameDictionary;
+import org.pingpong.model.Tournament;
+import org.pingpong.repository.TtwRosterRepository;
+import org.pingpong.repository.TtwRosterRepository.TtwRoster;
+import org.pingpong.service.player.parser.TtwPlayerParser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Места в турнирах TTW. Страница турнира читается один раз для всех участников и сохраняется
+ * целиком: когда в турнире играли несколько отслеживаемых игроков, их синхронизации берут место
+ * из сохранённого состава. Одновременные запросы одного турнира ждут одну загрузку.
+ */
+@Service
+public class TtwRosterService {
+
+    private static final Logger log = LoggerFactory.getLogger(TtwRosterService.class);
+
+    // Состав ещё не завершённого турнира может дополниться: если игрока в нём нет,
+    // страница перечитывается, но не чаще раза за этот срок
+    private static final Duration REFRESH_AFTER = Duration.ofDays(1);
+
+    private final TtwRosterRepository rosterRepository;
+    private final Map<String, CompletableFuture<TtwRoster>> inFlight = new ConcurrentHashMap<>();
+
+    public TtwRosterService(TtwRosterRepository rosterRepository) {
+        this.rosterRepository = rosterRepository;
+    }
+
+    /**
+     * Место игрока в турнире TTW или 0, если его нет в таблице турнира.
+     */
+    public Integer findPlace(Tournament tournament, String fio) throws IOException {
+        String ttwId = tournament.getTtwId();
+        if (ttwId == null) return 0;
+        String name = NameDictionary.canonical(fio);
+
+        TtwRoster stored = rosterRepository.find(ttwId);
+        if (stored != null) {
+            Integer place = stored.places().get(name);
+            if (place != null) return place;
+            if (!isStale(stored)) return 0;
+        }
+        return fetch(ttwId, stored).places().getOrDefault(name, 0);
+    }
+
+    private TtwRoster fetch(String ttwId, TtwRoster stored) throws IOException {
+        CompletableFuture<TtwRoster> own = new CompletableFuture<>();
+        CompletableFuture<TtwRoster> running = inFlight.putIfAbsent(ttwId, own);
+        if (running != null) return await(running);
+
+        try {
+            // Пока этот поток проверял базу, другой мог успеть загрузить страницу и уже освободить ключ
+            TtwRoster current = rosterRepository.find(ttwId);
+            if (current != null && (stored == null || current.fetchedOn().isAfter(stored.fetchedOn()))) {
+                own.complete(current);
+                return current;
+            }
+
+            TtwRoster roster = new TtwRoster(TtwPlayerParser.parseTournamentPlaces(ttwId), Instant.now());
+            try {
+                rosterRepository.save(ttwId, roster);
+            } catch (RuntimeException e) {
+                // Место уже известно; без сохранения страница просто будет прочитана ещё раз
+                log.warn("Не удалось сохранить состав турнира TTW {}: {}", ttwId, e.getMessage());
+            }
+            log.debug("Состав турнира TTW {}: {} участников", ttwId, roster.places().size());
+            own.complete(roster);
+            return roster;
+        } catch (IOException | RuntimeException e) {
+            own.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(ttwId, own);
+        }
+    }
+
+    private static TtwRoster await(CompletableFuture<TtwRoster> running) throws IOException {
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IOException io) throw io;
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw e;
+        }
+    }
+
+    private static boolean isStale(TtwRoster roster) {
+        return roster.fetchedOn().isBefore(Instant.now().minus(REFRESH_AFTER));
+    }
+}
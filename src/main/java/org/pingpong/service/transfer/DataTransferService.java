@@ -0,0 +1,318 @@
+package org.pingpong.service.transfer;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.MinimalPrettyPrinter;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.pingpong.config.HibernateUtil;
+import org.pingpong.model.Game;
+import org.pingpong.model.Player;
+import org.pingpong.model.Tournament;
+import org.pingpong.repository.DataTransferRepository;
+import org.pingpong.service.graph.RatingChartService;
+import org.pingpong.service.headtohead.HeadToHeadService;
+import org.pingpong.service.leaderboard.LeaderboardService;
+import org.pingpong.service.prediction.PredictionService;
+import org.pingpong.service.window.WindowStatsService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Экспорт и импорт всей базы в формате gzip NDJSON: по одному JSON-объекту на строку.
+ * Первая строка — заголовок с версией формата, далее игрок, его турниры, за каждым турниром — его игры.
+ * Файл читается и пишется потоково, расход памяти не зависит от размера базы.
+ */
+@Service
+public class DataTransferService {
+
+    public static final String FORMAT = "pingpong-export";
+    public static final int VERSION = 1;
+
+    private static final Logger log = LoggerFactory.getLogger(DataTransferService.class);
+
+    private final DataTransferRepository repository;
+    private final HeadToHeadService headToHeadService;
+    private final PredictionService predictionService;
+    private final RatingChartService ratingChartService;
+    private final LeaderboardService leaderboardService;
+    private final WindowStatsService windowStatsService;
+    private final ObjectMapper mapper = new ObjectMapper()
+            .enable(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS);
+
+    public DataTransferService(DataTransferRepository repository, HeadToHeadService headToHeadService,
+                               PredictionService predictionService, RatingChartService ratingChartService,
+                               LeaderboardService leaderboardService, WindowStatsService windowStatsService) {
+        this.repository = repository;
+        this.headToHeadService = headToHeadService;
+        this.predictionService = predictionService;
+        this.ratingChartService = ratingChartService;
+        this.leaderboardService = leaderboardService;
+        this.windowStatsService = windowStatsService;
+    }
+
+    public TransferResult exportTo(Path file) throws IOException {
+        long start = System.nanoTime();
+        Counter counter = new Counter();
+
+        try (OutputStream out = new GZIPOutputStream(new BufferedOutputStream(Files.newOutputStream(file)), 64 * 1024);
+             JsonGenerator gen = mapper.getFactory().createGenerator(out)) {
+
+            gen.setPrettyPrinter(new MinimalPrettyPrinter("\n"));
+            gen.writeStartObject();
+            gen.writeStringField("format", FORMAT);
+            gen.writeNumberField("version", VERSION);
+            gen.writeStringField("created", LocalDateTime.now().toString());
+            gen.writeEndObject();
+
+            repository.exportAll(new DataTransferRepository.ExportSink() {
+                @Override
+                public void player(Player player) {
+                    write(gen, () -> {
+                        gen.writeStringField("type", "player");
+                        writeField(gen, "fio", player.getFio());
+                        writeField(gen, "rttfId", player.getRttfId());
+                        writeField(gen, "ttwId", player.getTtwId());
+                        writeField(gen, "rttfRating", player.getRttfRating());
+                        writeField(gen, "ttwRating", player.getTtwRating());
+                    });
+                    counter.players++;
+                }
+
+                @Override
+                public void tournament(Tournament tournament) {
+                    write(gen, () -> {
+                        gen.writeStringField("type", "tournament");
+                        writeField(gen, "date", tournament.getDate() != null ? tournament.getDate().toString() : null);
+                        writeField(gen, "place", tournament.getPlace());
+                        writeField(gen, "rttfId", tournament.getRttfId());
+                        writeField(gen, "rttfName", tournament.getRttfName());
+                        writeField(gen, "rttfDelta", tournament.getRttfDelta());
+                        writeField(gen, "ttwId", tournament.getTtwId());
+                        writeField(gen, "ttwName", tournament.getTtwName());
+                        writeField(gen, "ttwDelta", tournament.getTtwDelta());
+                    });
+                    counter.tournaments++;
+                }
+
+                @Override
+                public void game(Game game) {
+                    write(gen, () -> {
+                        gen.writeStringField("type", "game");
+                        writeField(gen, "gameOrder", game.getGameOrder());
+                        writeField(gen, "gameNaturalOrder", game.getGameNaturalOrder());
+                        writeField(gen, "opponentName", game.getOpponentName());
+                        writeField(gen, "opponentRttfRating", game.getOpponentRttfRating());
+                        writeField(gen, "opponentTtwRating", game.getOpponentTtwRating());
+                        writeField(gen, "score", game.getScore());
+                        writeField(gen, "opponentScore", game.getOpponentScore());
+                        writeField(gen, "rttfDelta", game.getRttfDelta());
+                        writeField(gen, "ttwDelta", game.getTtwDelta());
+                    });
+                    counter.games++;
+                }
+            });
+        } catch (UncheckedIOException e) {
+            deletePartial(file, e.getCause());
+            throw e.getCause();
+        } catch (IOException | RuntimeException e) {
+            deletePartial(file, e);
+            throw e;
+        }
+
+        TransferResult result = counter.toResult();
+        log.info("Экспорт в {}: {} за {} мс", file, result, (System.nanoTime() - start) / 1_000_000);
+        return result;
+    }
+
+    /**
+     * Импортирует игроков из файла экспорта. Игроки, уже присутствующие в базе (по rttfId/ttwId),
+     * пропускаются вместе с их турнирами. Запись фиксируется частями: при ошибке в файле
+     * уже импортированные игроки остаются в базе.
+     */
+    public TransferResult importFrom(Path file) throws IOException {
+        long start = System.nanoTime();
+        Counter counter = new Counter();
+
+        try (InputStream in = new GZIPInputStream(new BufferedInputStream(Files.newInputStream(file)), 64 * 1024);
+             MappingIterator<JsonNode> lines = mapper.readerFor(JsonNode.class).readValues(in);
+             DataTransferRepository.Importer importer = repository.openImporter()) {
+
+            checkHeader(lines.hasNext() ? lines.next() : null);
+
+            Player currentPlayer = null;
+            Tournament currentTournament = null;
+            boolean skipping = false;
+
+            while (lines.hasNext()) {
+                JsonNode node = lines.next();
+                switch (node.path("type").asText()) {
+                    case "player" -> {
+                        currentPlayer = Player.builder()
+                                .fio(text(node, "fio"))
+                                .rttfId(text(node, "rttfId"))
+                                .ttwId(text(node, "ttwId"))
+                                .rttfRating(integer(node, "rttfRating"))
+                                .ttwRating(integer(node, "ttwRating"))
+                                .build();
+                        currentTournament = null;
+                        skipping = importer.exists(currentPlayer);
+                        if (skipping) {
+                            counter.skippedPlayers++;
+                        } else {
+                            importer.insert(currentPlayer);
+                            counter.players++;
+                        }
+                    }
+                    case "tournament" -> {
+                        if (currentPlayer == null) throw new IOException("Турнир без игрока в файле импорта");
+                        if (skipping) continue;
+                        String date = text(node, "date");
+                        currentTournament = Tournament.builder()
+                                .player(currentPlayer)
+                                .date(date != null ? LocalDate.parse(date) : null)
+                                .place(integer(node, "place"))
+                                .rttfId(text(node, "rttfId"))
+                                .rttfName(text(node, "rttfName"))
+                                .rttfDelta(decimal(node, "rttfDelta"))
+                                .ttwId(text(node, "ttwId"))
+                                .ttwName(text(node, "ttwName"))
+                                .ttwDelta(decimal(node, "ttwDelta"))
+                                .build();
+                        importer.insert(currentTournament);
+                        counter.tournaments++;
+                    }
+                    case "game" -> {
+                        if (skipping) continue;
+                        if (currentTournament == null) throw new IOException("Игра без турнира в файле импорта");
+                        importer.insert(Game.builder()
+                                .tournament(currentTournament)
+                                .gameOrder(integer(node, "gameOrder"))
+                                .gameNaturalOrder(integer(node, "gameNaturalOrder"))
+                                .opponentName(text(node, "opponentName"))
+                                .opponentRttfRating(integer(node, "opponentRttfRating"))
+                                .opponentTtwRating(integer(node, "opponentTtwRating"))
+                                .score(integer(node, "score"))
+                                .opponentScore(integer(node, "opponentScore"))
+                                .rttfDelta(decimal(node, "rttfDelta"))
+                                .ttwDelta(decimal(node, "ttwDelta"))
+                                .build());
+                        counter.games++;
+                    }
+                    default -> throw new IOException("Неизвестный тип записи: " + node.path("type").asText());
+                }
+            }
+            importer.commit();
+        } finally {
+            // Импорт идёт мимо кэша второго уровня. Части, зафиксированные до ошибки, остаются в базе,
+            // поэтому кэши и индексы сбрасываются и при неудачном импорте
+            HibernateUtil.getSessionFactory().getCache().evictAllRegions();
+            headToHeadService.invalidate();
+            predictionService.invalidate();
+            ratingChartService.invalidateAll();
+            leaderboardService.invalidate();
+            windowStatsService.invalidateAll();
+        }
+
+        TransferResult result = counter.toResult();
+        log.info("Импорт из {}: {} за {} мс", file, result, (System.nanoTime() - start) / 1_000_000);
+        return result;
+    }
+
+    /**
+     * Удаляет недописанный файл экспорта; ошибка удаления добавляется к исходной.
+     */
+    private static void deletePartial(Path file, Exception cause) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            cause.addSuppressed(e);
+        }
+    }
+
+    private void checkHeader(JsonNode header) throws IOException {
+        if (header == null || !FORMAT.equals(header.path("format").asText())) {
+            throw new IOException("Файл не является экспортом базы");
+        }
+        int version = header.path("version").asInt();
+        if (version < 1 || version > VERSION) {
+            throw new IOException("Неподдерживаемая версия формата: " + version);
+        }
+    }
+
+    private interface JsonWriter {
+        void write() throws IOException;
+    }
+
+    private static void write(JsonGenerator gen, JsonWriter fields) {
+        try {
+            gen.writeStartObject();
+            fields.write();
+            gen.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeField(JsonGenerator gen, String name, String value) throws IOException {
+        if (value != null) gen.writeStringField(name, value);
+    }
+
+    private static void writeField(JsonGenerator gen, String name, Integer value) throws IOException {
+        if (value != null) gen.writeNumberField(name, value);
+    }
+
+    private static void writeField(JsonGenerator gen, String name, BigDecimal value) throws IOException {
+        if (value != null) gen.writeNumberField(name, value);
+    }
+
+    private static String text(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        return value != null && !value.isNull() ? value.asText() : null;
+    }
+
+    private static Integer integer(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        return value != null && !value.isNull() ? value.asInt() : null;
+    }
+
+    private static BigDecimal decimal(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        return value != null && !value.isNull() ? value.decimalValue() : null;
+    }
+
+    public record TransferResult(int players, int tournaments, int games, int skippedPlayers) {
+        @Override
+        public String toString() {
+            return String.format("игроков %d, турниров %d, игр %d, пропущено игроков %d",
+                    players, tournaments, games, skippedPlayers);
+        }
+    }
+
+    private static class Counter {
+        int players;
+        int tournaments;
+        int games;
+        int skippedPlayers;
+
+        TransferResult toResult() {
+            return new TransferResult(players, tournaments, games, skippedPlayers);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package org.pingpong.service.window;
+
+import org.pingpong.model.PlayerStats;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * Префиксные суммы счётчиков одного игрока по турнирам, упорядоченным по дате. Итог за любой
+ * интервал дат — разность двух строк, граница ищется двоичным поиском: O(log n) без обхода игр.
+ */
+final class PrefixStats {
+
+    static final int TOURS = 0;
+    static final int RTTF_TOURS = 1;
+    static final int TTW_TOURS = 2;
+    static final int FIRST_PLACES = 3;
+    static final int SECOND_PLACES = 4;
+    static final int THIRD_PLACES = 5;
+    static final int WINS = 6;
+    static final int LOSSES = 7;
+    static final int RTTF_WINS = 8;
+    static final int RTTF_LOSSES = 9;
+    static final int TTW_WINS = 10;
+    static final int TTW_LOSSES = 11;
+    static final int RTTF_DELTA_CENTS = 12;
+    static final int TTW_DELTA_CENTS = 13;
+    static final int FIELDS = 14;
+
+    static final PrefixStats EMPTY = new Builder().build();
+
+    // Дни эпохи по неубыванию; строка i сумм — итог первых i турниров, строка 0 нулевая
+    private final int[] days;
+    private final int[] sums;
+
+    private PrefixStats(int[] days, int[] sums) {
+        this.days = days;
+        this.sums = sums;
+    }
+
+    int size() {
+        return days.length;
+    }
+
+    /**
+     * Индекс первого турнира не раньше указанного дня (size(), если таких нет).
+     */
+    int indexFrom(LocalDate since) {
+        if (since == null) return 0;
+        int day = (int) since.toEpochDay();
+        int low = 0;
+        int high = days.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (days[mid] < day) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+
+    /**
+     * Сумма поля по турнирам с индексом from и дальше.
+     */
+    int sum(int field, int from) {
+        return sums[days.length * FIELDS + field] - sums[from * FIELDS + field];
+    }
+
+    /**
+     * Статистика турниров начиная с индекса from в том же виде, что и за всё время.
+     */
+    PlayerStats stats(int from) {
+        PlayerStats stats = new PlayerStats();
+        stats.setTotalTours(sum(TOURS, from));
+        stats.setRttfTours(sum(RTTF_TOURS, from));
+        stats.setTtwTours(sum(TTW_TOURS, from));
+        stats.setFirstPlaces(sum(FIRST_PLACES, from));
+        stats.setSecondPlaces(sum(SECOND_PLACES, from));
+        stats.setThirdPlaces(sum(THIRD_PLACES, from));
+        stats.setTotalWins(sum(WINS, from));
+        stats.setTotalLosses(sum(LOSSES, from));
+        stats.setRttfWins(sum(RTTF_WINS, from));
+        stats.setRttfLosses(sum(RTTF_LOSSES, from));
+        stats.setTtwWins(sum(TTW_WINS, from));
+        stats.setTtwLosses(sum(TTW_LOSSES, from));
+        stats.setLastGameDate(from < days.length ? LocalDate.ofEpochDay(days[days.length - 1]) : null);
+        return stats;
+    }
+
+    /**
+     * Собирает суммы из турниров, добавляемых по возрастанию даты.
+     */
+    static final class Builder {
+        private int[] days = new int[16];
+        private int[] sums = new int[17 * FIELDS];
+        private int size;
+
+        void add(LocalDate date, int[] values) {
+            int day = (int) date.toEpochDay();
+            if (size > 0 && day < days[size - 1]) {
+                throw new IllegalArgumentException("Турниры должны идти по возрастанию даты");
+            }
+            if (size == days.length) {
+                days = Arrays.copyOf(days, size * 2);
+                sums = Arrays.copyOf(sums, (size * 2 + 1) * FIELDS);
+            }
+            days[size] = day;
+            int previous = size * FIELDS;
+            int next = previous + FIELDS;
+            for (int field = 0; field < FIELDS; field++) {
+                sums[next + field] = sums[previous + field] + values[field];
+            }
+            size++;
+        }
+
+        PrefixStats build() {
+            return new PrefixStats(Arrays.copyOf(days, size), Arrays.copyOf(sums, (size + 1) * FIELDS));
+        }
+    }
+}
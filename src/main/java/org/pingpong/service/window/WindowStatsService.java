@@ -0,0 +1,184 @@
+package org.pingpong.service.window;
+
+import org.pingpong.model.Player;
+import org.pingpong.model.PlayerStats;
+import org.pingpong.repository.PlayerRepository;
+import org.pingpong.repository.TournamentRepository.TournamentEdit;
+import org.pingpong.service.tournament.TournamentWriteBehind;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Статистика игроков за скользящий период (30 дней, 90 дней, год). По каждому игроку один раз
+ * строятся префиксные суммы по датам турниров, после чего любой период считается двоичным поиском,
+ * а переключение периода в главной таблице не обращается к БД.
+ * <p>
+ * Счётчики «за всё время» берутся из обычной статистики игрока (в ней учтены и турниры без даты),
+ * из префиксных сумм — только изменение рейтинга за период.
+ */
+@Service
+public class WindowStatsService {
+
+    private static final Logger log = LoggerFactory.getLogger(WindowStatsService.class);
+
+    public enum Window {
+        ALL("За всё время", 0),
+        MONTH("30 дней", 30),
+        QUARTER("90 дней", 90),
+        YEAR("Год", 365);
+
+        private final String title;
+        private final int days;
+
+        Window(String title, int days) {
+            this.title = title;
+            this.days = days;
+        }
+
+        /**
+         * Первый день периода включительно; null — без ограничения.
+         */
+        public LocalDate since(LocalDate today) {
+            return days > 0 ? today.minusDays(days) : null;
+        }
+
+        @Override
+        public String toString() {
+            return title;
+        }
+    }
+
+    /**
+     * Статистика за период и изменение рейтингов за него в сотых.
+     */
+    public record WindowStats(PlayerStats stats, int rttfDeltaCents, int ttwDeltaCents) {
+    }
+
+    private final PlayerRepository playerRepository;
+    private final TournamentWriteBehind tournamentWriteBehind;
+
+    // null — суммы ещё не построены или сброшены; игрока без записи догружаем отдельно
+    private Map<Long, PrefixStats> index;
+    // Слушатель сброса правок вызывается под блокировкой TournamentWriteBehind, поэтому только
+    // помечает суммы устаревшими, а не ждёт монитор этого сервиса
+    private volatile boolean stale;
+
+    public WindowStatsService(PlayerRepository playerRepository, TournamentWriteBehind tournamentWriteBehind) {
+        this.playerRepository = playerRepository;
+        this.tournamentWriteBehind = tournamentWriteBehind;
+        tournamentWriteBehind.addFlushListener(this::onEditsFlushed);
+    }
+
+    /**
+     * Статистика за период по всем переданным игрокам, по ID игрока.
+     */
+    public Map<Long, WindowStats> stats(List<Player> players, Window window) {
+        // Неотправленные правки дат и мест должны попасть в суммы
+        tournamentWriteBehind.flush();
+        synchronized (this) {
+            long start = System.nanoTime();
+            LocalDate since = window.since(LocalDate.now());
+            Map<Long, WindowStats> result = new HashMap<>(players.size() * 2);
+            for (Player player : players) {
+                if (player.getId() != null) {
+                    result.put(player.getId(), stats(player, since));
+                }
+            }
+            log.debug("Статистика «{}» для {} игроков: {} мкс", window, players.size(), (System.nanoTime() - start) / 1_000);
+            return result;
+        }
+    }
+
+    public synchronized void invalidate(Long playerId) {
+        if (index != null && playerId != null) index.remove(playerId);
+    }
+
+    public synchronized void invalidateAll() {
+        index = null;
+    }
+
+    private WindowStats stats(Player player, LocalDate since) {
+        PrefixStats prefix = prefix(player.getId());
+        int from = prefix.indexFrom(since);
+        PlayerStats stats = since == null && player.getStats() != null ? player.getStats() : prefix.stats(from);
+        return new WindowStats(stats, prefix.sum(PrefixStats.RTTF_DELTA_CENTS, from),
+                prefix.sum(PrefixStats.TTW_DELTA_CENTS, from));
+    }
+
+    private PrefixStats prefix(Long playerId) {
+        if (stale) {
+            stale = false;
+            index = null;
+        }
+        if (index == null) {
+            long start = System.nanoTime();
+            index = build(playerRepository.findTournamentTotals(null));
+            log.debug("Префиксные суммы: {} игроков за {} мс", index.size(), (System.nanoTime() - start) / 1_000_000);
+        }
+        PrefixStats prefix = index.get(playerId);
+        if (prefix == null) {
+            prefix = build(playerRepository.findTournamentTotals(playerId)).getOrDefault(playerId, PrefixStats.EMPTY);
+            index.put(playerId, prefix);
+        }
+        return prefix;
+    }
+
+    /**
+     * Строки {@link PlayerRepository#findTournamentTotals} по возрастанию игрока и даты.
+     */
+    static Map<Long, PrefixStats> build(List<Object[]> rows) {
+        Map<Long, PrefixStats> result = new HashMap<>();
+        Long current = null;
+        PrefixStats.Builder builder = null;
+        int[] values = new int[PrefixStats.FIELDS];
+        for (Object[] row : rows) {
+            Long playerId = (Long) row[0];
+            if (!playerId.equals(current)) {
+                if (builder != null) result.put(current, builder.build());
+                current = playerId;
+                builder = new PrefixStats.Builder();
+            }
+            Integer place = (Integer) row[4];
+            values[PrefixStats.TOURS] = 1;
+            values[PrefixStats.RTTF_TOURS] = toInt(row[2]);
+            values[PrefixStats.TTW_TOURS] = toInt(row[3]);
+            values[PrefixStats.FIRST_PLACES] = place != null && place == 1 ? 1 : 0;
+            values[PrefixStats.SECOND_PLACES] = place != null && place == 2 ? 1 : 0;
+            values[PrefixStats.THIRD_PLACES] = place != null && place == 3 ? 1 : 0;
+            values[PrefixStats.RTTF_DELTA_CENTS] = cents((BigDecimal) row[5]);
+            values[PrefixStats.TTW_DELTA_CENTS] = cents((BigDecimal) row[6]);
+            values[PrefixStats.WINS] = toInt(row[7]);
+            values[PrefixStats.LOSSES] = toInt(row[8]);
+            values[PrefixStats.RTTF_WINS] = toInt(row[9]);
+            values[PrefixStats.RTTF_LOSSES] = toInt(row[10]);
+            values[PrefixStats.TTW_WINS] = toInt(row[11]);
+            values[PrefixStats.TTW_LOSSES] = toInt(row[12]);
+            builder.add((LocalDate) row[1], values);
+        }
+        if (builder != null) result.put(current, builder.build());
+        return result;
+    }
+
+    private void onEditsFlushed(List<TournamentEdit> edits) {
+        // Правка не знает игрока турнира, а дата и место меняют его суммы — сбрасываем всё
+        if (!edits.isEmpty()) {
+            stale = true;
+        }
+    }
+
+    private static int cents(BigDecimal delta) {
+        return delta != null ? delta.movePointRight(2).setScale(0, RoundingMode.HALF_UP).intValueExact() : 0;
+    }
+
+    private static int toInt(Object value) {
+        return value != null ? ((Number) value).intValue() : 0;
+    }
+}
@@ -7,18 +7,27 @@ import javafx.concurrent.Task;
 import javafx.geometry.Insets;
 import javafx.scene.control.*;
 import javafx.scene.layout.BorderPane;
+import lombok.Setter;
 import org.pingpong.Utils;
 import org.pingpong.model.Game;
 import org.pingpong.model.Player;
 import org.pingpong.model.Tournament;
 import org.pingpong.repository.GameRepository;
+import org.pingpong.service.MainAppRefresher;
 import org.pingpong.service.game.GameService;
 import org.pingpong.service.game.GameServiceImpl;
+import org.pingpong.service.headtohead.HeadToHeadService;
+import org.pingpong.service.player.PlayerStatsUpdater;
+import org.pingpong.service.prediction.PredictionService;
+import org.pingpong.service.prediction.PredictionService.GamePrediction;
+import org.pingpong.service.prediction.PredictionService.Prediction;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.math.BigDecimal;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 
 public class GamesView extends BorderPane {
 
@@ -27,11 +36,22 @@ public class GamesView extends BorderPane {
     GameRepository gameRepository = new GameRepository();
     private final GameService gameService = new GameServiceImpl(gameRepository);
     private final Player currentPlayer;
+    private final PlayerStatsUpdater statsUpdater;
+    private final HeadToHeadService headToHeadService;
+    private final PredictionService predictionService;
+    // Прогноз по каждой загруженной игре; пусто, если модель недоступна
+    private volatile Map<Game, GamePrediction> predictions = new IdentityHashMap<>();
     private Tournament currentTournament;
+    @Setter
+    private MainAppRefresher mainAppRefresher;
     private static final Logger log = LoggerFactory.getLogger(GamesView.class);
 
-    public GamesView(Player player) {
+    public GamesView(Player player, PlayerStatsUpdater statsUpdater, HeadToHeadService headToHeadService,
+                     PredictionService predictionService) {
         this.currentPlayer = player;
+        this.statsUpdater = statsUpdater;
+        this.headToHeadService = headToHeadService;
+        this.predictionService = predictionService;
         initializeUI();
     }
 
@@ -85,7 +105,19 @@ public class GamesView extends BorderPane {
         Task<List<Game>> task = new Task<>() {
             @Override
             protected List<Game> call() {
-                return gameService.findByTournamentId(tournament.getId());
+                List<Game> games = gameService.findByTournamentId(tournament.getId());
+                Map<Game, GamePrediction> byGame = new IdentityHashMap<>();
+                try {
+                    List<GamePrediction> predicted = predictionService.predictGames(currentPlayer, tournament, games);
+                    for (int i = 0; i < games.size(); i++) {
+                        byGame.put(games.get(i), predicted.get(i));
+                    }
+                } catch (Exception e) {
+                    // Игры показываются и без прогноза
+                    log.warn("Прогноз для турнира {} недоступен: {}", tournament.getId(), e.getMessage(), e);
+                }
+                predictions = byGame;
+                return games;
             }
         };
 
@@ -148,7 +180,39 @@ public class GamesView extends BorderPane {
 
         deltaHeaderCol.getColumns().addAll(rttfDeltaCol, ttwDeltaCol);
 
-        tableView.getColumns().setAll(opponentCol, ratingHeaderCol, resultCol, deltaHeaderCol);
+        // Прогноз по разнице рейтингов перед турниром: вероятность победы и ожидаемая дельта
+        TableColumn<Game, Void> forecastHeaderCol = new TableColumn<>("Прогноз");
+
+        TableColumn<Game, String> winChanceCol = new TableColumn<>("Победа");
+        winChanceCol.setCellValueFactory(data -> {
+            Prediction prediction = preferredPrediction(data.getValue());
+            return new SimpleStringProperty(prediction != null
+                    ? String.format("%.0f%%", prediction.winProbability() * 100) : "");
+        });
+
+        TableColumn<Game, String> rttfExpectedCol = new TableColumn<>("RTTF");
+        rttfExpectedCol.setCellValueFactory(data -> expectedDelta(predictionOf(data.getValue()), true));
+        TableColumn<Game, String> ttwExpectedCol = new TableColumn<>("TTW");
+        ttwExpectedCol.setCellValueFactory(data -> expectedDelta(predictionOf(data.getValue()), false));
+
+        forecastHeaderCol.getColumns().addAll(winChanceCol, rttfExpectedCol, ttwExpectedCol);
+
+        tableView.getColumns().setAll(opponentCol, ratingHeaderCol, resultCol, deltaHeaderCol, forecastHeaderCol);
+    }
+
+    private GamePrediction predictionOf(Game game) {
+        return predictions.get(game);
+    }
+
+    private Prediction preferredPrediction(Game game) {
+        GamePrediction prediction = predictionOf(game);
+        if (prediction == null) return null;
+        return prediction.rttf() != null ? prediction.rttf() : prediction.ttw();
+    }
+
+    private SimpleStringProperty expectedDelta(GamePrediction prediction, boolean rttf) {
+        Prediction source = prediction == null ? null : rttf ? prediction.rttf() : prediction.ttw();
+        return new SimpleStringProperty(source != null ? String.format("%+.2f", source.expectedDelta()) : "");
     }
 
     /**
@@ -218,6 +282,10 @@ public class GamesView extends BorderPane {
 
         if (alert.showAndWait().orElse(ButtonType.CANCEL) == ButtonType.OK) {
             gameService.delete(selected);
+            // Статистика игрока в главной таблице уменьшается на эту игру без перезагрузки списка
+            statsUpdater.gameRemoved(currentPlayer, currentTournament, selected);
+            headToHeadService.gameRemoved(currentPlayer, currentTournament, selected);
+            if (mainAppRefresher != null) mainAppRefresher.refreshPlayer(currentPlayer);
             refreshGames();
             statusLabel.setText("✅ Игра удалена");
         }
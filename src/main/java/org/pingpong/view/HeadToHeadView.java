@@ -0,0 +1,156 @@
+package org.pingpong.view;
+
+import javafx.beans.property.SimpleObjectProperty;
+import javafx.beans.property.SimpleStringProperty;
+import javafx.collections.FXCollections;
+import javafx.collections.transformation.FilteredList;
+import javafx.concurrent.Task;
+import javafx.geometry.Insets;
+import javafx.scene.control.*;
+import javafx.scene.layout.BorderPane;
+import org.pingpong.Utils;
+import org.pingpong.model.Player;
+import org.pingpong.service.headtohead.HeadToHeadService;
+import org.pingpong.service.headtohead.HeadToHeadService.HeadToHead;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+import java.util.stream.Collectors;
+
+/**
+ * Личные встречи игрока: итог против каждого соперника и поиск соперника по имени.
+ */
+public class HeadToHeadView extends BorderPane {
+
+    private static final Logger log = LoggerFactory.getLogger(HeadToHeadView.class);
+
+    private final TableView<HeadToHead> tableView = new TableView<>();
+    private final TextField searchField = new TextField();
+    private final Label statusLabel = new Label("Загрузка личных встреч...");
+    private final Player player;
+    private final HeadToHeadService headToHeadService;
+    private FilteredList<HeadToHead> filtered;
+    // Итоги из уже загруженного списка по каноническому имени соперника: поиск не обращается к сервису
+    private Map<String, HeadToHead> byOpponent = Map.of();
+
+    public HeadToHeadView(Player player, HeadToHeadService headToHeadService) {
+        this.player = player;
+        this.headToHeadService = headToHeadService;
+        initializeUI();
+        load();
+    }
+
+    private void initializeUI() {
+        tableView.setColumnResizePolicy(TableView.CONSTRAINED_RESIZE_POLICY);
+        setupColumns();
+
+        searchField.setPromptText("Соперник: Фамилия Имя Отчество или Фамилия И.О.");
+        searchField.textProperty().addListener((obs, old, text) -> applyFilter(text));
+
+        setTop(new ToolBar(new Label("🔍"), searchField));
+        setCenter(tableView);
+        setBottom(statusLabel);
+        setPadding(new Insets(10));
+    }
+
+    private void setupColumns() {
+        TableColumn<HeadToHead, String> opponentCol = new TableColumn<>("Соперник");
+        opponentCol.setCellValueFactory(data -> new SimpleStringProperty(data.getValue().opponent()));
+        opponentCol.prefWidthProperty().bind(tableView.widthProperty().multiply(0.25));
+
+        TableColumn<HeadToHead, Integer> meetingsCol = number("Игр", HeadToHead::meetings);
+        TableColumn<HeadToHead, Integer> winsCol = number("+", HeadToHead::wins);
+        TableColumn<HeadToHead, Integer> lossesCol = number("-", HeadToHead::losses);
+
+        TableColumn<HeadToHead, String> rateCol = new TableColumn<>("%");
+        rateCol.setCellValueFactory(data -> new SimpleStringProperty(
+                String.format("%.1f%%", data.getValue().winRate())));
+
+        TableColumn<HeadToHead, String> setsCol = new TableColumn<>("Партии");
+        setsCol.setCellValueFactory(data -> new SimpleStringProperty(
+                data.getValue().setsWon() + ":" + data.getValue().setsLost()));
+
+        TableColumn<HeadToHead, LocalDate> lastCol = new TableColumn<>("Последняя");
+        lastCol.setCellValueFactory(data -> new SimpleObjectProperty<>(data.getValue().lastMeeting()));
+
+        TableColumn<HeadToHead, Void> deltaCol = new TableColumn<>("Дельта");
+        TableColumn<HeadToHead, BigDecimal> rttfDeltaCol = new TableColumn<>("RTTF");
+        rttfDeltaCol.setCellValueFactory(data -> new SimpleObjectProperty<>(data.getValue().rttfDelta()));
+        TableColumn<HeadToHead, BigDecimal> ttwDeltaCol = new TableColumn<>("TTW");
+        ttwDeltaCol.setCellValueFactory(data -> new SimpleObjectProperty<>(data.getValue().ttwDelta()));
+        deltaCol.getColumns().addAll(rttfDeltaCol, ttwDeltaCol);
+
+        tableView.getColumns().setAll(opponentCol, meetingsCol, winsCol, lossesCol, rateCol, setsCol, lastCol, deltaCol);
+    }
+
+    private TableColumn<HeadToHead, Integer> number(String title, ToIntFunction<HeadToHead> getter) {
+        TableColumn<HeadToHead, Integer> column = new TableColumn<>(title);
+        column.setCellValueFactory(data -> new SimpleObjectProperty<>(getter.applyAsInt(data.getValue())));
+        return column;
+    }
+
+    private void load() {
+        Task<List<HeadToHead>> task = new Task<>() {
+            @Override
+            protected List<HeadToHead> call() {
+                return headToHeadService.findAll(player.getId());
+            }
+        };
+
+        task.setOnSucceeded(e -> {
+            byOpponent = task.getValue().stream()
+                    .collect(Collectors.toMap(HeadToHead::opponent, Function.identity(), (a, b) -> a));
+            filtered = new FilteredList<>(FXCollections.observableArrayList(task.getValue()));
+            tableView.setItems(filtered);
+            applyFilter(searchField.getText());
+        });
+
+        task.setOnFailed(e -> {
+            Throwable ex = task.getException();
+            statusLabel.setText("❌ Ошибка загрузки: " + ex.getMessage());
+            log.error("Ошибка загрузки личных встреч игрока {}: {}", player.getId(), ex.getMessage(), ex);
+        });
+
+        new Thread(task).start();
+    }
+
+    /**
+     * Точное имя соперника находится в загруженном списке сразу, иначе список фильтруется по подстроке.
+     */
+    private void applyFilter(String text) {
+        if (filtered == null) return;
+        String query = text == null ? "" : text.trim();
+        if (query.isEmpty()) {
+            filtered.setPredicate(null);
+            statusLabel.setText("✅ Соперников: " + filtered.size());
+            return;
+        }
+
+        HeadToHead exact = findLoaded(query);
+        if (exact != null) {
+            filtered.setPredicate(h -> h.opponent().equals(exact.opponent()));
+            statusLabel.setText(String.format("%s: %d игр, побед %d, поражений %d, партии %d:%d",
+                    exact.opponent(), exact.meetings(), exact.wins(), exact.losses(), exact.setsWon(), exact.setsLost()));
+            return;
+        }
+
+        String lower = query.toLowerCase(Locale.ROOT);
+        filtered.setPredicate(h -> h.opponent().toLowerCase(Locale.ROOT).contains(lower));
+        statusLabel.setText("Найдено соперников: " + filtered.size());
+    }
+
+    /**
+     * Имя принимается и полным («Фамилия Имя Отчество»), и каноническим — как в {@link HeadToHeadService#find}.
+     */
+    private HeadToHead findLoaded(String name) {
+        HeadToHead exact = byOpponent.get(name);
+        return exact != null ? exact : byOpponent.get(Utils.shortenFio(name));
+    }
+}
@@ -0,0 +1,126 @@
+package org.pingpong.view;
+
+import javafx.beans.property.SimpleObjectProperty;
+import javafx.beans.property.SimpleStringProperty;
+import javafx.collections.FXCollections;
+import javafx.concurrent.Task;
+import javafx.geometry.Insets;
+import javafx.scene.control.*;
+import javafx.scene.layout.BorderPane;
+import org.pingpong.service.leaderboard.LeaderboardService;
+import org.pingpong.service.leaderboard.LeaderboardService.Metric;
+import org.pingpong.service.leaderboard.LeaderboardService.Period;
+import org.pingpong.service.leaderboard.LeaderboardService.Standing;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Таблица лидеров по выбранному показателю и периоду, постранично.
+ */
+public class LeaderboardView extends BorderPane {
+
+    private static final Logger log = LoggerFactory.getLogger(LeaderboardView.class);
+    private static final int PAGE_SIZE = 50;
+
+    private final TableView<Standing> tableView = new TableView<>();
+    private final ComboBox<Metric> metricBox = new ComboBox<>(FXCollections.observableArrayList(Metric.values()));
+    private final ComboBox<Period> periodBox = new ComboBox<>(FXCollections.observableArrayList(Period.values()));
+    private final Button previousButton = new Button("◀");
+    private final Button nextButton = new Button("▶");
+    private final Label statusLabel = new Label("Загрузка таблицы лидеров...");
+    private final LeaderboardService leaderboardService;
+    private int offset;
+
+    public LeaderboardView(LeaderboardService leaderboardService) {
+        this.leaderboardService = leaderboardService;
+        initializeUI();
+        load();
+    }
+
+    private void initializeUI() {
+        tableView.setColumnResizePolicy(TableView.CONSTRAINED_RESIZE_POLICY);
+        // Порядок задаёт сервис, пересортировка по столбцам сбила бы места
+        tableView.setSortPolicy(table -> false);
+        setupColumns();
+
+        metricBox.getSelectionModel().select(Metric.WIN_RATE);
+        periodBox.getSelectionModel().select(Period.ALL);
+        metricBox.setOnAction(e -> firstPage());
+        periodBox.setOnAction(e -> firstPage());
+        previousButton.setOnAction(e -> {
+            offset = Math.max(0, offset - PAGE_SIZE);
+            load();
+        });
+        nextButton.setOnAction(e -> {
+            offset += PAGE_SIZE;
+            load();
+        });
+
+        setTop(new ToolBar(metricBox, periodBox, new Separator(), previousButton, nextButton));
+        setCenter(tableView);
+        setBottom(statusLabel);
+        setPadding(new Insets(10));
+    }
+
+    private void setupColumns() {
+        TableColumn<Standing, Integer> rankCol = new TableColumn<>("Место");
+        rankCol.setCellValueFactory(data -> new SimpleObjectProperty<>(data.getValue().rank()));
+        rankCol.setMaxWidth(70);
+
+        TableColumn<Standing, String> fioCol = new TableColumn<>("ФИО");
+        fioCol.setCellValueFactory(data -> new SimpleStringProperty(data.getValue().fio()));
+
+        TableColumn<Standing, String> valueCol = new TableColumn<>("Значение");
+        valueCol.setCellValueFactory(data -> new SimpleStringProperty(
+                metricBox.getValue().format(data.getValue().value())));
+
+        TableColumn<Standing, LocalDate> lastCol = new TableColumn<>("Последний турнир");
+        lastCol.setCellValueFactory(data -> new SimpleObjectProperty<>(data.getValue().lastGameDate()));
+
+        tableView.getColumns().setAll(rankCol, fioCol, valueCol, lastCol);
+    }
+
+    private void firstPage() {
+        offset = 0;
+        load();
+    }
+
+    private void load() {
+        Metric metric = metricBox.getValue();
+        Period period = periodBox.getValue();
+        int pageOffset = offset;
+        previousButton.setDisable(true);
+        nextButton.setDisable(true);
+
+        // Лишняя строка показывает, есть ли следующая страница
+        Task<List<Standing>> task = new Task<>() {
+            @Override
+            protected List<Standing> call() {
+                return leaderboardService.page(metric, period, pageOffset, PAGE_SIZE + 1);
+            }
+        };
+
+        task.setOnSucceeded(e -> {
+            List<Standing> page = task.getValue();
+            boolean hasNext = page.size() > PAGE_SIZE;
+            List<Standing> shown = hasNext ? page.subList(0, PAGE_SIZE) : page;
+            tableView.setItems(FXCollections.observableArrayList(shown));
+            previousButton.setDisable(pageOffset == 0);
+            nextButton.setDisable(!hasNext);
+            statusLabel.setText(shown.isEmpty()
+                    ? "Нет игроков для этой таблицы"
+                    : String.format("Места %d–%d", shown.get(0).rank(), shown.get(shown.size() - 1).rank()));
+        });
+
+        task.setOnFailed(e -> {
+            Throwable ex = task.getException();
+            statusLabel.setText("❌ Ошибка загрузки: " + ex.getMessage());
+            log.error("Ошибка загрузки таблицы лидеров {}: {}", metric, ex.getMessage(), ex);
+        });
+
+        new Thread(task).start();
+    }
+}
@@ -0,0 +1,135 @@
+package org.pingpong.view;
+
+import javafx.concurrent.Task;
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
+import javafx.scene.control.Label;
+import javafx.scene.control.ToggleButton;
+import javafx.scene.control.ToggleGroup;
+import javafx.scene.control.ToolBar;
+import javafx.scene.layout.BorderPane;
+import javafx.scene.layout.FlowPane;
+import javafx.scene.layout.VBox;
+import javafx.scene.paint.Color;
+import javafx.scene.shape.Line;
+import org.pingpong.Utils;
+import org.pingpong.model.Player;
+import org.pingpong.service.graph.RatingCanvas;
+import org.pingpong.service.graph.RatingChartService;
+import org.pingpong.service.graph.RatingSeries;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Сравнение рейтингов нескольких игроков на одной оси времени. Истории загружаются в фоне
+ * через кэш RatingChartService, переключатель RTTF/TTW перестраивает только ряды графика.
+ */
+public class RatingComparisonView extends BorderPane {
+
+    private static final Logger log = LoggerFactory.getLogger(RatingComparisonView.class);
+
+    private static final Color[] PALETTE = {
+            Color.web("#cc0000"), Color.web("#0066cc"), Color.web("#2e9e3e"), Color.web("#e68a00"),
+            Color.web("#7b3fb3"), Color.web("#00a0a0"), Color.web("#c2185b"), Color.web("#6d5d3a"),
+            Color.web("#5c6bc0"), Color.web("#888888")
+    };
+
+    private final RatingCanvas chart = new RatingCanvas();
+    private final FlowPane legend = new FlowPane(12, 4);
+    private final Label statusLabel = new Label("Загрузка рейтингов...");
+    private final ToggleButton rttfButton = new ToggleButton("RTTF");
+    private final ToggleButton ttwButton = new ToggleButton("TTW");
+    private final List<Player> players;
+    private final RatingChartService ratingChartService;
+    private List<RatingSeries> series = List.of();
+
+    public RatingComparisonView(List<Player> players, RatingChartService ratingChartService) {
+        this.players = List.copyOf(players);
+        this.ratingChartService = ratingChartService;
+        initializeUI();
+        load();
+    }
+
+    private void initializeUI() {
+        ToggleGroup source = new ToggleGroup();
+        rttfButton.setToggleGroup(source);
+        ttwButton.setToggleGroup(source);
+        rttfButton.setSelected(true);
+        source.selectedToggleProperty().addListener((obs, old, current) -> {
+            // Одна кнопка всегда нажата
+            if (current == null) {
+                old.setSelected(true);
+                return;
+            }
+            showSeries();
+        });
+
+        chart.setLegendVisible(false);
+        legend.setPadding(new Insets(0, 0, 0, 60));
+        legend.setAlignment(Pos.CENTER_LEFT);
+
+        setTop(new ToolBar(new Label("Рейтинг:"), rttfButton, ttwButton));
+        setCenter(chart);
+        setBottom(new VBox(4, legend, statusLabel));
+        setPadding(new Insets(10));
+    }
+
+    private void load() {
+        Task<List<RatingSeries>> task = new Task<>() {
+            @Override
+            protected List<RatingSeries> call() {
+                return ratingChartService.getSeries(players);
+            }
+        };
+
+        task.setOnSucceeded(e -> {
+            series = task.getValue();
+            showSeries();
+        });
+
+        task.setOnFailed(e -> {
+            Throwable ex = task.getException();
+            statusLabel.setText("❌ Ошибка загрузки: " + ex.getMessage());
+            log.error("Ошибка загрузки рейтингов для сравнения: {}", ex.getMessage(), ex);
+        });
+
+        new Thread(task).start();
+    }
+
+    private void showSeries() {
+        if (series.isEmpty()) return;
+        boolean rttf = rttfButton.isSelected();
+        String source = rttf ? "RTTF" : "TTW";
+
+        chart.clearSeries();
+        legend.getChildren().clear();
+        List<String> without = new ArrayList<>();
+        for (int i = 0; i < players.size(); i++) {
+            Player player = players.get(i);
+            RatingSeries data = series.get(i);
+            int[] cents = rttf ? data.rttfCents() : data.ttwCents();
+            String name = Utils.shortenFio(player.getFio());
+            if (cents.length == 0) {
+                without.add(name);
+                continue;
+            }
+            Color color = PALETTE[i % PALETTE.length];
+            chart.addSeries(name, color, data.days(), cents);
+
+            Line sample = new Line(0, 0, 16, 0);
+            sample.setStroke(color);
+            sample.setStrokeWidth(2);
+            Label item = new Label(name, sample);
+            legend.getChildren().add(item);
+        }
+
+        chart.setTitle(chart.hasSeries() ? "Сравнение рейтингов " + source : "Нет данных о рейтингах " + source);
+        chart.resetView();
+        statusLabel.setText(without.isEmpty()
+                ? "✅ Игроков: " + players.size()
+                : "Без рейтинга " + source + ": " + String.join(", ", without));
+    }
+}
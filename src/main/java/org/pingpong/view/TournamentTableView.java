@@ -4,8 +4,6 @@ import javafx.application.HostServices;
 import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
-import javafx.collections.transformation.FilteredList;
-import javafx.collections.transformation.SortedList;
 import javafx.concurrent.Task;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
@@ -21,11 +19,16 @@ import javafx.stage.Stage;
 import lombok.Setter;
 import org.pingpong.model.Player;
 import org.pingpong.model.Tournament;
-import org.pingpong.repository.TournamentRepository;
+import org.pingpong.repository.TournamentRepository.PageCursor;
+import org.pingpong.repository.TournamentRepository.SortField;
+import org.pingpong.repository.TournamentRepository.TournamentPage;
 import org.pingpong.service.MainAppRefresher;
-import org.pingpong.service.player.parser.TtwPlayerParser;
+import org.pingpong.service.headtohead.HeadToHeadService;
+import org.pingpong.service.player.PlayerStatsUpdater;
+import org.pingpong.service.prediction.PredictionService;
 import org.pingpong.service.tournament.TournamentService;
-import org.pingpong.service.tournament.TournamentServiceImpl;
+import org.pingpong.service.tournament.TournamentWriteBehind;
+import org.pingpong.service.tournament.TtwRosterService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -34,22 +37,40 @@ import java.time.LocalDate;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
-import java.util.function.Predicate;
 import java.util.function.Function;
 
+/**
+ * Турниры игрока. Строки подгружаются страницами по мере прокрутки; фильтр «с медалями»
+ * и сортировка по колонке выполняются в БД, таблица показывает строки в порядке загрузки.
+ */
 public class TournamentTableView extends BorderPane {
 
+    private static final int PAGE_SIZE = 100;
+    // За сколько строк до конца загруженного списка запрашивать следующую страницу
+    private static final int PREFETCH_ROWS = 20;
+
     private final TableView<Tournament> tableView = new TableView<>();
     private final CheckBox medalsOnlyCheckBox = new CheckBox("Показать только турниры с медалями");
-    private FilteredList<Tournament> filteredTournaments;
+    private final ObservableList<Tournament> tournaments = FXCollections.observableArrayList();
     private final Label statusLabel = new Label("Готово");
 
+    private PageCursor nextCursor;
+    private boolean lastPageLoaded;
+    private boolean pageLoading;
+    // Растёт при смене игрока, фильтра или сортировки: ответы на старые запросы отбрасываются
+    private int loadGeneration;
+    private long totalCount;
+
     private Player currentPlayer;
     @Setter
     private MainAppRefresher mainAppRefresher;
 
-    TournamentRepository tournamentRepository = new TournamentRepository();
     private final TournamentService tournamentService;
+    private final TournamentWriteBehind tournamentWriteBehind;
+    private final PlayerStatsUpdater statsUpdater;
+    private final HeadToHeadService headToHeadService;
+    private final PredictionService predictionService;
+    private final TtwRosterService ttwRosterService;
     private static final Logger log = LoggerFactory.getLogger(TournamentTableView.class);
 
     // --- Добавим HostServices ---
@@ -57,8 +78,15 @@ public class TournamentTableView extends BorderPane {
     private HostServices hostServices;
 
     // --- Конструктор ---
-    public TournamentTableView() {
-        this.tournamentService = new TournamentServiceImpl(tournamentRepository);
+    public TournamentTableView(TournamentService tournamentService, TournamentWriteBehind tournamentWriteBehind,
+                               PlayerStatsUpdater statsUpdater, HeadToHeadService headToHeadService,
+                               PredictionService predictionService, TtwRosterService ttwRosterService) {
+        this.tournamentService = tournamentService;
+        this.tournamentWriteBehind = tournamentWriteBehind;
+        this.statsUpdater = statsUpdater;
+        this.headToHeadService = headToHeadService;
+        this.predictionService = predictionService;
+        this.ttwRosterService = ttwRosterService;
         initializeUI();
         setupEventHandlers();
     }
@@ -96,29 +124,32 @@ public class TournamentTableView extends BorderPane {
     }
 
     private void setupTableColumns() {
-        addColumn("Дата", "date", 70);
-        addLinkColumn("Название RTTF", "rttfName", 180, this::buildRttfUrl);
-        addColumn("Дельта RTTF", "rttfDelta", 80);
-        addLinkColumn("Название TTW", "ttwName", 180, this::buildTtwUrl);
-        addColumn("Дельта TTW", "ttwDelta", 80);
-        addColumn("Место", "place", 80);
+        addColumn("Дата", "date", 70, SortField.DATE);
+        addLinkColumn("Название RTTF", "rttfName", 180, SortField.RTTF_NAME, this::buildRttfUrl);
+        addColumn("Дельта RTTF", "rttfDelta", 80, SortField.RTTF_DELTA);
+        addLinkColumn("Название TTW", "ttwName", 180, SortField.TTW_NAME, this::buildTtwUrl);
+        addColumn("Дельта TTW", "ttwDelta", 80, SortField.TTW_DELTA);
+        addColumn("Место", "place", 80, SortField.PLACE);
 
         // Настройка цвета дельт
         setDeltaCellFactory((TableColumn<Tournament, BigDecimal>) tableView.getColumns().get(2)); // rttfDelta
         setDeltaCellFactory((TableColumn<Tournament, BigDecimal>) tableView.getColumns().get(4)); // ttwDelta
     }
 
-    private <T> void addColumn(String title, String property, double width) {
+    private <T> void addColumn(String title, String property, double width, SortField sortField) {
         TableColumn<Tournament, T> col = new TableColumn<>(title);
         col.setCellValueFactory(new PropertyValueFactory<>(property));
         col.setPrefWidth(width);
+        col.setUserData(sortField);
         tableView.getColumns().add(col);
     }
 
     // --- Новая колонка с гиперссылкой ---
-    private void addLinkColumn(String title, String propertyName, double width, Function<Tournament, String> urlBuilder) {
+    private void addLinkColumn(String title, String propertyName, double width, SortField sortField,
+                               Function<Tournament, String> urlBuilder) {
         TableColumn<Tournament, String> col = new TableColumn<>(title);
         col.setPrefWidth(width);
+        col.setUserData(sortField);
 
         col.setCellFactory(tc -> new TableCell<>() {
             private final Hyperlink link = new Hyperlink();
@@ -167,6 +198,25 @@ public class TournamentTableView extends BorderPane {
 
     private void setupTableBehavior() {
         tableView.setColumnResizePolicy(TableView.CONSTRAINED_RESIZE_POLICY);
+        tableView.setItems(tournaments);
+
+        // Сортировку выполняет БД: при смене колонки или направления список перезагружается с начала
+        tableView.setSortPolicy(table -> {
+            reloadFromStart();
+            return true;
+        });
+
+        // Строка у конца загруженного списка стала видимой — подгружаем следующую страницу
+        tableView.setRowFactory(table -> new TableRow<>() {
+            @Override
+            protected void updateItem(Tournament item, boolean empty) {
+                super.updateItem(item, empty);
+                if (!empty && getIndex() >= tournaments.size() - PREFETCH_ROWS) {
+                    loadNextPage();
+                }
+            }
+        });
+
         tableView.setOnMouseClicked(event -> {
             if (event.getClickCount() == 2 && tableView.getSelectionModel().getSelectedItem() != null) {
                 showGamesWindow(tableView.getSelectionModel().getSelectedItem());
@@ -175,68 +225,103 @@ public class TournamentTableView extends BorderPane {
     }
 
     private void setupEventHandlers() {
-        medalsOnlyCheckBox.selectedProperty().addListener((obs, oldVal, newVal) -> applyFilter());
+        medalsOnlyCheckBox.selectedProperty().addListener((obs, oldVal, newVal) -> reloadFromStart());
     }
 
     public void setTournamentsForPlayer(Player player) {
         if (player == null) return;
 
         this.currentPlayer = player;
+        reloadFromStart();
+    }
+
+    /**
+     * Сбрасывает загруженные строки и запрашивает число турниров и первую страницу
+     * с текущими фильтром и сортировкой.
+     */
+    private void reloadFromStart() {
+        if (currentPlayer == null) return;
+
+        loadGeneration++;
+        tournaments.clear();
+        nextCursor = null;
+        lastPageLoaded = false;
+        pageLoading = false;
+        totalCount = 0;
         statusLabel.setText("Загружаем турниры...");
 
-        Task<List<Tournament>> task = new Task<>() {
+        int generation = loadGeneration;
+        Long playerId = currentPlayer.getId();
+        boolean medalsOnly = medalsOnlyCheckBox.isSelected();
+        Task<Long> countTask = new Task<>() {
+            @Override
+            protected Long call() {
+                return tournamentService.countByPlayerId(playerId, medalsOnly);
+            }
+        };
+        countTask.setOnSucceeded(e -> {
+            if (generation != loadGeneration) return;
+            totalCount = countTask.getValue();
+            updateStatusLabel();
+        });
+        new Thread(countTask).start();
+
+        loadNextPage();
+    }
+
+    private void loadNextPage() {
+        if (currentPlayer == null || pageLoading || lastPageLoaded) return;
+
+        pageLoading = true;
+        int generation = loadGeneration;
+        Long playerId = currentPlayer.getId();
+        boolean medalsOnly = medalsOnlyCheckBox.isSelected();
+        SortField sortField = SortField.DATE;
+        boolean ascending = false;
+        if (!tableView.getSortOrder().isEmpty()) {
+            TableColumn<Tournament, ?> column = tableView.getSortOrder().get(0);
+            sortField = (SortField) column.getUserData();
+            ascending = column.getSortType() == TableColumn.SortType.ASCENDING;
+        }
+        SortField field = sortField;
+        boolean asc = ascending;
+        PageCursor after = nextCursor;
+
+        Task<TournamentPage> task = new Task<>() {
             @Override
-            protected List<Tournament> call() {
-                return tournamentService.findByPlayerId(player.getId());
+            protected TournamentPage call() {
+                return tournamentService.findPage(playerId, medalsOnly, field, asc, after, PAGE_SIZE);
             }
         };
 
         task.setOnSucceeded(e -> {
-            List<Tournament> tournaments = task.getValue();
-            initializeFilteredAndSortedData(tournaments);
+            if (generation != loadGeneration) return;
+            TournamentPage page = task.getValue();
+            tournaments.addAll(page.items());
+            nextCursor = page.next();
+            lastPageLoaded = page.next() == null;
+            pageLoading = false;
             updateStatusLabel();
         });
 
         task.setOnFailed(e -> {
+            if (generation != loadGeneration) return;
+            pageLoading = false;
             Throwable ex = task.getException();
-            Platform.runLater(() -> statusLabel.setText("❌ Ошибка: " + ex.getMessage()));
+            statusLabel.setText("❌ Ошибка: " + ex.getMessage());
             log.error("Ошибка при загрузке турниров для игрока {} :\n {}",
-                    player.getId(), ex.getMessage(), ex);
+                    playerId, ex.getMessage(), ex);
         });
 
         new Thread(task).start();
     }
 
-    private void initializeFilteredAndSortedData(List<Tournament> tournaments) {
-        ObservableList<Tournament> observable = FXCollections.observableArrayList(tournaments);
-        filteredTournaments = new FilteredList<>(observable, t -> true);
-        applyFilter();
-
-        SortedList<Tournament> sortedTournaments = new SortedList<>(filteredTournaments);
-        sortedTournaments.comparatorProperty().bind(tableView.comparatorProperty());
-
-        tableView.setItems(sortedTournaments);
-    }
-
-    private void applyFilter() {
-        if (filteredTournaments == null) return;
-
-        Predicate<Tournament> predicate = tournament ->
-                !medalsOnlyCheckBox.isSelected() || tournament.hasMedals();
-
-        filteredTournaments.setPredicate(predicate);
-        updateStatusLabel();
-    }
-
     private void updateStatusLabel() {
-        if (currentPlayer == null || filteredTournaments == null) return;
-
-        long total = filteredTournaments.getSource().size();
-        long shown = filteredTournaments.size();
-        boolean filtering = medalsOnlyCheckBox.isSelected();
+        if (currentPlayer == null) return;
 
-        String filterText = filtering ? " (с медалями)" : "";
-        statusLabel.setText(String.format("✅ Турниров: %d%s → видно: %d", total, filterText, shown));
+        String filterText = medalsOnlyCheckBox.isSelected() ? " (с медалями)" : "";
+        statusLabel.setText(String.format("✅ Турниров: %d%s → загружено: %d",
+                Math.max(totalCount, tournaments.size()), filterText, tournaments.size()));
     }
 
     private void updateEmptyTtwPlacesForCurrentPlayer() {
@@ -245,15 +330,16 @@ public class TournamentTableView extends BorderPane {
             return;
         }
 
+        Long playerId = currentPlayer.getId();
+
         Task<Void> task = new Task<>() {
             private int updatedCount = 0;
             private int errorCount = 0;
 
             @Override
             protected Void call() {
-                List<Tournament> toUpdate = currentPlayer.getTournamentList().stream()
-                        .filter(t -> t.getTtwName() != null && t.getPlace() == null)
-                        .toList();
+                // В таблице может быть загружена только часть турниров, поэтому кандидатов выбирает БД
+                List<Tournament> toUpdate = tournamentService.findTtwWithoutPlace(playerId);
 
                 int total = toUpdate.size();
                 if (total == 0) {
@@ -263,10 +349,10 @@ public class TournamentTableView extends BorderPane {
 
                 for (Tournament tournament : toUpdate) {
                     try {
-                        Integer place = TtwPlayerParser.getTournamentPlace(tournament, currentPlayer.getFio());
+                        Integer place = ttwRosterService.findPlace(tournament, currentPlayer.getFio());
                         if (place > 0) {
                             tournament.setPlace(place);
-                            tournamentService.update(tournament);
+                            tournamentWriteBehind.updatePlace(tournament.getId(), place);
                             updatedCount++;
                         }
                     } catch (Exception e) {
@@ -279,6 +365,8 @@ public class TournamentTableView extends BorderPane {
                     updateMessage("Обновлено " + updatedCount + " из " + total + ", ошибок: " + errorCount);
                 }
 
+                // Таблица и главное окно перечитают данные — правки должны быть уже в БД
+                tournamentWriteBehind.flush();
                 return null;
             }
 
@@ -306,9 +394,7 @@ public class TournamentTableView extends BorderPane {
     }
 
     private void refreshTable() {
-        if (currentPlayer != null) {
-            setTournamentsForPlayer(currentPlayer);
-        }
+        reloadFromStart();
     }
 
     private void showGamesWindow(Tournament tournament) {
@@ -320,7 +406,8 @@ public class TournamentTableView extends BorderPane {
         gamesStage.setMinWidth(900);
         gamesStage.setMinHeight(650);
 
-        GamesView gamesView = new GamesView(currentPlayer);
+        GamesView gamesView = new GamesView(currentPlayer, statsUpdater, headToHeadService, predictionService);
+        gamesView.setMainAppRefresher(mainAppRefresher);
         gamesView.loadGamesForTournament(tournament);
 
         Scene scene = new Scene(gamesView);
@@ -376,11 +463,41 @@ public class TournamentTableView extends BorderPane {
 
         Optional<ButtonType> result = dialog.showAndWait();
         if (result.isPresent() && result.get() == ButtonType.OK) {
+            LocalDate oldDate = tournament.getDate();
+            Integer oldPlace = tournament.getPlace();
             tournament.setDate(LocalDate.parse(dateField.getText()));
             tournament.setPlace(Integer.valueOf(placeField.getText()));
-            tournamentService.update(tournament);
+            tournamentWriteBehind.updateDateAndPlace(tournament.getId(), tournament.getDate(), tournament.getPlace());
+            // Медали и дата последнего турнира в главной таблице меняются вместе с правкой
+            if (statsUpdater.tournamentEdited(currentPlayer, tournament, oldDate, oldPlace)) {
+                reloadLastGameDate(currentPlayer);
+            }
+            if (mainAppRefresher != null) mainAppRefresher.refreshPlayer(currentPlayer);
             tableView.refresh();
             statusLabel.setText("Турнир обновлён!");
         }
     }
+
+    /**
+     * Последний турнир сдвинут назад: новую дату последнего турнира берём из БД после записи правки.
+     */
+    private void reloadLastGameDate(Player player) {
+        Task<PlayerStatsUpdater.StatsChange> task = new Task<>() {
+            @Override
+            protected PlayerStatsUpdater.StatsChange call() {
+                tournamentWriteBehind.flush();
+                return statsUpdater.prepareLastGameDate(player.getId());
+            }
+        };
+
+        task.setOnSucceeded(e -> {
+            statsUpdater.apply(player, task.getValue());
+            if (mainAppRefresher != null) mainAppRefresher.refreshPlayer(player);
+        });
+
+        task.setOnFailed(e -> log.error("Ошибка загрузки даты последнего турнира игрока {}: {}",
+                player.getFio(), task.getException().getMessage(), task.getException()));
+
+        new Thread(task).start();
+    }
 }
\ No newline at end of file
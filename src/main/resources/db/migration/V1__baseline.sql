@@ -0,0 +1,40 @@
+-- Исходная схема: игроки, их турниры и игры. Имена ограничений совпадают с теми,
+-- что раньше создавал hbm2ddl=update, поэтому на существующей базе скрипт ничего не меняет.
+
+CREATE TABLE IF NOT EXISTS PLAYERS (
+    id         BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    fio        VARCHAR(255),
+    rttfId     VARCHAR(255),
+    rttfRating INTEGER,
+    ttwId      VARCHAR(255),
+    ttwRating  INTEGER
+);
+
+CREATE TABLE IF NOT EXISTS TOURNAMENTS (
+    id        BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    date      DATE,
+    place     INTEGER,
+    rttfDelta NUMERIC(38, 2),
+    rttfId    VARCHAR(255),
+    rttfName  VARCHAR(255),
+    ttwDelta  NUMERIC(38, 2),
+    ttwId     VARCHAR(255),
+    ttwName   VARCHAR(255),
+    player_id BIGINT,
+    CONSTRAINT FKT7VOVP0OHXD8QDRR7UO327BN9 FOREIGN KEY (player_id) REFERENCES PLAYERS (id)
+);
+
+CREATE TABLE IF NOT EXISTS GAMES (
+    id                 BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    gameNaturalOrder   INTEGER,
+    gameOrder          INTEGER,
+    opponentName       VARCHAR(255),
+    opponentRttfRating INTEGER,
+    opponentScore      INTEGER,
+    opponentTtwRating  INTEGER,
+    rttfDelta          NUMERIC(38, 2),
+    score              INTEGER,
+    ttwDelta           NUMERIC(38, 2),
+    tournament_id      BIGINT,
+    CONSTRAINT FK1T63YC34P0SWDPSKOY8357PKR FOREIGN KEY (tournament_id) REFERENCES TOURNAMENTS (id)
+);
@@ -0,0 +1,36 @@
+-- Перенос имён соперников в словарь OPPONENTS и дельт в целые сотые.
+-- Скрипт повторяемый: после сбоя посередине выполняется заново без потери данных.
+
+CREATE TABLE IF NOT EXISTS OPPONENTS (
+    id   BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name VARCHAR(255) NOT NULL,
+    CONSTRAINT UK5XVNQ1DSD2382AFRRIKKC4TLL UNIQUE (name)
+);
+
+ALTER TABLE GAMES ADD COLUMN IF NOT EXISTS opponent_id BIGINT;
+ALTER TABLE GAMES ADD COLUMN IF NOT EXISTS rttfDeltaCents INTEGER;
+ALTER TABLE GAMES ADD COLUMN IF NOT EXISTS ttwDeltaCents INTEGER;
+ALTER TABLE GAMES ADD COLUMN IF NOT EXISTS opponentName VARCHAR(255);
+ALTER TABLE GAMES ADD COLUMN IF NOT EXISTS rttfDelta NUMERIC(38, 2);
+ALTER TABLE GAMES ADD COLUMN IF NOT EXISTS ttwDelta NUMERIC(38, 2);
+
+INSERT INTO OPPONENTS (name)
+SELECT DISTINCT g.opponentName
+FROM GAMES g
+WHERE g.opponentName IS NOT NULL
+  AND NOT EXISTS (SELECT 1 FROM OPPONENTS o WHERE o.name = g.opponentName);
+
+UPDATE GAMES g
+SET opponent_id    = COALESCE((SELECT o.id FROM OPPONENTS o WHERE o.name = g.opponentName), g.opponent_id),
+    rttfDeltaCents = COALESCE(CAST(ROUND(g.rttfDelta * 100) AS INTEGER), g.rttfDeltaCents),
+    ttwDeltaCents  = COALESCE(CAST(ROUND(g.ttwDelta * 100) AS INTEGER), g.ttwDeltaCents)
+WHERE g.opponentName IS NOT NULL
+   OR g.rttfDelta IS NOT NULL
+   OR g.ttwDelta IS NOT NULL;
+
+ALTER TABLE GAMES DROP COLUMN opponentName;
+ALTER TABLE GAMES DROP COLUMN rttfDelta;
+ALTER TABLE GAMES DROP COLUMN ttwDelta;
+
+ALTER TABLE GAMES ADD CONSTRAINT IF NOT EXISTS FKOV9A5OYPHDYR2VHFN4E8TIY1O
+    FOREIGN KEY (opponent_id) REFERENCES OPPONENTS (id);
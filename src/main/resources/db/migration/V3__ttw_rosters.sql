@@ -0,0 +1,15 @@
+-- Общий каталог турниров TTW: итоговые места всех участников, снятые со страницы турнира.
+-- Строка на турнир, а не на игрока: страницу скачивает тот, кто синхронизируется первым.
+
+CREATE TABLE IF NOT EXISTS TTW_TOURNAMENTS (
+    ttwId     VARCHAR(255) PRIMARY KEY,
+    fetchedOn TIMESTAMP NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS TTW_TOURNAMENT_PLACES (
+    ttwId VARCHAR(255) NOT NULL,
+    name  VARCHAR(255) NOT NULL,
+    place INTEGER      NOT NULL,
+    CONSTRAINT PK_TTW_TOURNAMENT_PLACES PRIMARY KEY (ttwId, name),
+    CONSTRAINT FK_TTW_TOURNAMENT_PLACES FOREIGN KEY (ttwId) REFERENCES TTW_TOURNAMENTS (ttwId) ON DELETE CASCADE
+);